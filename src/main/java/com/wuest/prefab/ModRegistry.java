@@ -4,9 +4,12 @@ import com.wuest.prefab.blocks.*;
 import com.wuest.prefab.blocks.entities.LightSwitchBlockEntity;
 import com.wuest.prefab.blocks.entities.StructureScannerBlockEntity;
 import com.wuest.prefab.config.StructureScannerConfig;
+import com.wuest.prefab.events.ServerEvents;
 import com.wuest.prefab.items.*;
+import com.wuest.prefab.network.message.ConfigHashPayload;
 import com.wuest.prefab.network.message.ConfigSyncPayload;
 import com.wuest.prefab.network.message.PlayerConfigPayload;
+import com.wuest.prefab.network.message.ScanCancelPayload;
 import com.wuest.prefab.network.message.ScanShapePayload;
 import com.wuest.prefab.network.message.ScannerConfigPayload;
 import com.wuest.prefab.recipe.ConditionedShapedRecipe;
@@ -15,6 +18,7 @@ import com.wuest.prefab.recipe.ConditionedSmeltingRecipe;
 import com.wuest.prefab.registries.ModRegistries;
 import com.wuest.prefab.structures.config.BasicStructureConfiguration;
 import com.wuest.prefab.structures.config.StructureConfiguration;
+import com.wuest.prefab.structures.events.BuildAdmissionController;
 import com.wuest.prefab.structures.items.*;
 import com.wuest.prefab.structures.messages.StructurePayload;
 import com.wuest.prefab.structures.messages.StructureTagMessage;
@@ -483,6 +487,8 @@ public class ModRegistry {
         ModRegistry.registerStructureScannerMessageHandler();
 
         ModRegistry.registerStructureScannerActionMessageHandler();
+
+        ModRegistry.registerConfigHashMessageHandler();
     }
 
     private static void RegisterRecipeSerializers() {
@@ -504,6 +510,8 @@ public class ModRegistry {
         PayloadTypeRegistry.playC2S().register(StructurePayload.PACKET_TYPE, StructurePayload.STREAM_CODEC);
         PayloadTypeRegistry.playC2S().register(ScannerConfigPayload.PACKET_TYPE, ScannerConfigPayload.STREAM_CODEC);
         PayloadTypeRegistry.playC2S().register(ScanShapePayload.PACKET_TYPE, ScanShapePayload.STREAM_CODEC);
+        PayloadTypeRegistry.playC2S().register(ScanCancelPayload.PACKET_TYPE, ScanCancelPayload.STREAM_CODEC);
+        PayloadTypeRegistry.playC2S().register(ConfigHashPayload.PACKET_TYPE, ConfigHashPayload.STREAM_CODEC);
         PayloadTypeRegistry.playS2C().register(ConfigSyncPayload.PACKET_TYPE, ConfigSyncPayload.STREAM_CODEC);
         PayloadTypeRegistry.playS2C().register(PlayerConfigPayload.PACKET_TYPE, PlayerConfigPayload.STREAM_CODEC);
     }
@@ -518,7 +526,8 @@ public class ModRegistry {
                 // This is now on the "main" server thread and things can be done in the world!
                 StructureConfiguration configuration = structureConfig.structureConfig.ReadFromCompoundTag(payLoad.structureTagMessage().getMessageTag());
 
-                configuration.BuildStructure(context.player(), context.player().serverLevel());
+                // Builds are admitted through the controller so players can't flood the server with structures.
+                BuildAdmissionController.submit(context.player(), context.player().serverLevel(), configuration);
             });
         });
     }
@@ -549,6 +558,25 @@ public class ModRegistry {
                 StructureScannerBlockEntity.ScanShape(config, context.player(), context.player().serverLevel());
             });
         });
+
+        ServerPlayNetworking.registerGlobalReceiver(ScanCancelPayload.PACKET_TYPE, (payLoad, context) -> {
+            // Packet processor, data will already have been de-serialized.
+            context.player().getServer().execute(() -> {
+                StructureScannerConfig config = payLoad.scannerInfo().ToConfig();
+
+                StructureScannerBlockEntity.CancelScan(config, context.player().serverLevel());
+            });
+        });
+    }
+
+    private static void registerConfigHashMessageHandler() {
+        ServerPlayNetworking.registerGlobalReceiver(ConfigHashPayload.PACKET_TYPE, (payLoad, context) -> {
+            // Packet processor, data will already have been de-serialized.
+            context.player().getServer().execute(() -> {
+                // The client already has this configuration when the hashes match.
+                ServerEvents.sendConfigIfChanged(context.player(), payLoad.configHash());
+            });
+        });
     }
 
     public static boolean always(BlockState state, BlockGetter world, BlockPos pos) {
@@ -6,6 +6,7 @@ import me.shedaniel.autoconfig.AutoConfig;
 import me.shedaniel.autoconfig.serializer.GsonConfigSerializer;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.object.builder.v1.block.FabricBlockSettings;
+import net.minecraft.world.InteractionResult;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.SoundType;
@@ -55,6 +56,14 @@ public class Prefab implements ModInitializer {
         Prefab.serverConfiguration = new ModConfiguration();
         Prefab.configuration = AutoConfig.getConfigHolder(ModConfiguration.class).getConfig();
 
+        // Recipe and structure options can be changed from the configuration screen; keep the compiled flags in step.
+        AutoConfig.getConfigHolder(ModConfiguration.class).registerSaveListener((holder, config) -> {
+            config.compileRecipes();
+            config.compileStructureOptions();
+            ServerEvents.invalidateConfigSync();
+            return InteractionResult.PASS;
+        });
+
         ServerEvents.registerServerEvents();
     }
 }
@@ -4,11 +4,19 @@ import com.google.common.base.Charsets;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
 import com.google.common.io.Files;
+import com.google.gson.stream.JsonWriter;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.zip.DataFormatException;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -140,6 +148,39 @@ public class ZipUtil {
 		}
 	}
 
+	/**
+	 * Streams JSON straight into a GZip compressed file without building the whole document in memory first.
+	 * The data is written to a temporary file next to the target which then replaces the target, so a failed write never
+	 * leaves a partial file behind.
+	 *
+	 * @param fileLocation The location of the file to write the compressed data too.
+	 * @param content      Writes the JSON content.
+	 * @throws IOException Thrown when the file could not be written.
+	 */
+	public static void zipJsonToFile(String fileLocation, JsonContentWriter content) throws IOException {
+		Path targetPath = Paths.get(fileLocation);
+		Path tempPath = targetPath.resolveSibling(targetPath.getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 65536);
+			JsonWriter jsonWriter = new JsonWriter(new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8)));
+
+			content.write(jsonWriter);
+
+			// Closing the writer finishes the GZip stream; the channel is closed by the try block.
+			jsonWriter.close();
+		} catch (IOException | RuntimeException e) {
+			java.nio.file.Files.deleteIfExists(tempPath);
+			throw e;
+		}
+
+		try {
+			java.nio.file.Files.move(tempPath, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			java.nio.file.Files.move(tempPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
 	/**
 	 * De-compresses a resource location into a string.
 	 *
@@ -188,4 +229,12 @@ public class ZipUtil {
 
 		return returnValue;
 	}
+
+	/**
+	 * Writes JSON content to a {@link JsonWriter}.
+	 */
+	@FunctionalInterface
+	public interface JsonContentWriter {
+		void write(JsonWriter writer) throws IOException;
+	}
 }
@@ -1,8 +1,12 @@
 package com.wuest.prefab.blocks;
 
+import com.wuest.prefab.ModRegistry;
 import com.wuest.prefab.Prefab;
 import com.wuest.prefab.events.ServerEvents;
 import com.wuest.prefab.gui.GuiLangKeys;
+import com.wuest.prefab.registries.BlockRegionCache;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.client.gui.screens.Screen;
@@ -100,7 +104,7 @@ public class BlockBoundary extends Block {
         boolean poweredSide = world.hasNeighborSignal(pos);
 
         if (poweredSide) {
-            this.setNeighborGlassBlocksPoweredStatus(world, pos, false, 0, new ArrayList<>(), false);
+            this.setNeighborGlassBlocksPoweredStatus(world, pos, false, false);
         }
         return state;
     }
@@ -120,12 +124,31 @@ public class BlockBoundary extends Block {
         boolean poweredSide = context.getLevel().hasNeighborSignal(context.getClickedPos());
 
         if (poweredSide) {
-            this.setNeighborGlassBlocksPoweredStatus(context.getLevel(), context.getClickedPos(), true, 0, new ArrayList<>(), false);
+            this.setNeighborGlassBlocksPoweredStatus(context.getLevel(), context.getClickedPos(), true, false);
         }
 
         return this.defaultBlockState().setValue(Powered, poweredSide);
     }
 
+    @Override
+    protected void onPlace(BlockState blockState, Level level, BlockPos blockPos, BlockState oldState, boolean movedByPiston) {
+        super.onPlace(blockState, level, blockPos, oldState, movedByPiston);
+
+        // Powering only changes the state; the connected blocks only change when a boundary block is added or removed.
+        if (!level.isClientSide && oldState.getBlock() != blockState.getBlock()) {
+            ModRegistry.serverModRegistries.getBoundaryRegionCache().onBlockPlaced(level, blockPos);
+        }
+    }
+
+    @Override
+    protected void onRemove(BlockState blockState, Level level, BlockPos blockPos, BlockState newState, boolean movedByPiston) {
+        if (!level.isClientSide && newState.getBlock() != blockState.getBlock()) {
+            ModRegistry.serverModRegistries.getBoundaryRegionCache().invalidate(level, blockPos);
+        }
+
+        super.onRemove(blockState, level, blockPos, newState, movedByPiston);
+    }
+
     /**
      * Called when a neighboring block was changed and marks that this state should perform any checks during a neighbor
      * change. Cases may include when red-stone power is updated, cactus blocks popping off due to a neighboring solid
@@ -138,7 +161,7 @@ public class BlockBoundary extends Block {
             if (blockIn.defaultBlockState().isSignalSource()) {
                 boolean poweredSide = worldIn.hasNeighborSignal(pos);
 
-                this.setNeighborGlassBlocksPoweredStatus(worldIn, pos, poweredSide, 0, new ArrayList<>(), true);
+                this.setNeighborGlassBlocksPoweredStatus(worldIn, pos, poweredSide, true);
             }
         }
     }
@@ -218,43 +241,45 @@ public class BlockBoundary extends Block {
     }
 
     /**
-     * Sets the neighbor powered status
+     * Determines if a block state is a boundary block.
      *
-     * @param world            The world where the block resides.
-     * @param pos              The position of the block.
-     * @param isPowered        Determines if the block is powered.
-     * @param cascadeCount     How many times this has been cascaded.
-     * @param cascadedBlockPos All of the block positions which have been cascaded too.
-     * @param setCurrentBlock  Determines if the current block should be set.
+     * @param blockState The block state to check.
+     * @return True if the state belongs to a boundary block, otherwise false.
      */
-    protected void setNeighborGlassBlocksPoweredStatus(Level world, BlockPos pos, boolean isPowered, int cascadeCount, ArrayList<BlockPos> cascadedBlockPos,
-                                                       boolean setCurrentBlock) {
-        cascadeCount++;
+    public static boolean isBoundary(BlockState blockState) {
+        return blockState.getBlock() instanceof BlockBoundary;
+    }
 
-        if (cascadeCount > 100) {
-            return;
-        }
+    /**
+     * Sets the powered status of every boundary block connected to a position in a single pass.
+     * On the server the connected blocks of an existing boundary block come from the cached regions, so a redstone change
+     * doesn't walk the wall again.
+     *
+     * @param world           The world where the block resides.
+     * @param pos             The position of the block.
+     * @param isPowered       Determines if the block is powered.
+     * @param setCurrentBlock Determines if the current block should be set.
+     */
+    protected void setNeighborGlassBlocksPoweredStatus(Level world, BlockPos pos, boolean isPowered, boolean setCurrentBlock) {
+        LongOpenHashSet connectedPositions;
 
-        if (setCurrentBlock) {
-            BlockState state = world.getBlockState(pos);
-            world.setBlock(pos, state.setValue(Powered, isPowered), 3);
+        if (!world.isClientSide && setCurrentBlock) {
+            connectedPositions = ModRegistry.serverModRegistries.getBoundaryRegionCache().getRegion(world, pos).getPositions();
+        } else {
+            // The block at the position is being placed or destroyed, so it isn't part of a cached region.
+            connectedPositions = BlockRegionCache.findConnected(world, pos, BlockBoundary::isBoundary);
         }
 
-        cascadedBlockPos.add(pos);
+        ArrayList<BlockPos> positionsToUpdate = new ArrayList<>(connectedPositions.size());
 
-        for (Direction facing : Direction.values()) {
-            Block neighborBlock = world.getBlockState(pos.relative(facing)).getBlock();
+        for (LongIterator iterator = connectedPositions.iterator(); iterator.hasNext(); ) {
+            long position = iterator.nextLong();
 
-            if (neighborBlock instanceof BlockBoundary) {
-                // If the block is already in the correct state, there is no need to cascade to it's neighbors.
-                if (cascadedBlockPos.contains(pos.relative(facing))) {
-                    continue;
-                }
-
-                // running this method for the neighbor block will cascade out to it's other neighbors until there are
-                // no more Phasic blocks around.
-                ((BlockBoundary) neighborBlock).setNeighborGlassBlocksPoweredStatus(world, pos.relative(facing), isPowered, cascadeCount, cascadedBlockPos, true);
+            if (setCurrentBlock || position != pos.asLong()) {
+                positionsToUpdate.add(BlockPos.of(position));
             }
         }
+
+        BlockRegionCache.setStates(world, positionsToUpdate, this.defaultBlockState().setValue(Powered, isPowered), BlockBoundary::isBoundary);
     }
 }
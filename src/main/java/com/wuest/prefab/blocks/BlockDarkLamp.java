@@ -7,6 +7,7 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.item.context.BlockPlaceContext;
 import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.SoundType;
 import net.minecraft.world.level.block.state.BlockBehaviour;
@@ -60,6 +61,25 @@ public class BlockDarkLamp extends Block {
         }
     }
 
+    @Override
+    protected void onPlace(BlockState blockState, Level level, BlockPos blockPos, BlockState oldState, boolean movedByPiston) {
+        super.onPlace(blockState, level, blockPos, oldState, movedByPiston);
+
+        // Lighting or dimming a lamp only changes its state; the lamp itself stays in the index.
+        if (!level.isClientSide && oldState.getBlock() != blockState.getBlock()) {
+            ModRegistry.serverModRegistries.getLightSwitchRegistry().onLampPlaced(level, blockPos);
+        }
+    }
+
+    @Override
+    protected void onRemove(BlockState blockState, Level level, BlockPos blockPos, BlockState newState, boolean movedByPiston) {
+        if (!level.isClientSide && newState.getBlock() != blockState.getBlock()) {
+            ModRegistry.serverModRegistries.getLightSwitchRegistry().onLampRemoved(level, blockPos);
+        }
+
+        super.onRemove(blockState, level, blockPos, newState, movedByPiston);
+    }
+
     @Override
     protected void createBlockStateDefinition(StateDefinition.Builder<Block, BlockState> builder) {
         builder.add(BlockDarkLamp.LIT);
@@ -1,7 +1,11 @@
 package com.wuest.prefab.blocks;
 
+import com.wuest.prefab.ModRegistry;
 import com.wuest.prefab.Prefab;
 import com.wuest.prefab.events.ServerEvents;
+import com.wuest.prefab.registries.BlockRegionCache;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.object.builder.v1.block.FabricBlockSettings;
@@ -78,8 +82,14 @@ public class BlockPhasic extends Block {
             EnumPhasingProgress progress = state.getValue(Phasing_Progress);
 
             if (progress == EnumPhasingProgress.base) {
-                // Only trigger the phasing when this block is not currently phasing.
-                world.scheduleTick(pos, this, this.tickRate);
+                BlockRegionCache.Region region = ModRegistry.serverModRegistries.getPhasicRegionCache().getRegion(world, pos);
+
+                // Only trigger the phasing when this block's region is not currently phasing.
+                // The clicked block becomes the one which drives the region through its phases.
+                if (!world.getBlockTicks().hasScheduledTick(BlockPos.of(region.getController()), this)) {
+                    region.setController(pos.asLong());
+                    world.scheduleTick(pos, this, this.tickRate);
+                }
             }
         }
 
@@ -128,6 +138,39 @@ public class BlockPhasic extends Block {
         return state;
     }
 
+    @Override
+    protected void onPlace(BlockState blockState, Level level, BlockPos blockPos, BlockState oldState, boolean movedByPiston) {
+        super.onPlace(blockState, level, blockPos, oldState, movedByPiston);
+
+        // Phasing only changes the state; the region itself only changes when a phasic block is added or removed.
+        if (!level.isClientSide && oldState.getBlock() != blockState.getBlock()) {
+            ModRegistry.serverModRegistries.getPhasicRegionCache().onBlockPlaced(level, blockPos);
+        }
+    }
+
+    @Override
+    protected void onRemove(BlockState blockState, Level level, BlockPos blockPos, BlockState newState, boolean movedByPiston) {
+        if (!level.isClientSide && newState.getBlock() != blockState.getBlock()) {
+            ModRegistry.serverModRegistries.getPhasicRegionCache().invalidate(level, blockPos);
+
+            // This block may have been driving its region; let the blocks next to it pick up the phasing.
+            // Only one of them ends up driving each of the regions which are left.
+            if (blockState.getValue(Phasing_Progress) != EnumPhasingProgress.base && !ServerEvents.RedstoneAffectedBlockPositions.contains(blockPos)) {
+                for (Direction facing : Direction.values()) {
+                    BlockPos neighborPos = blockPos.relative(facing);
+                    BlockState neighborState = level.getBlockState(neighborPos);
+
+                    if (neighborState.getBlock() instanceof BlockPhasic
+                            && neighborState.getValue(Phasing_Progress) == blockState.getValue(Phasing_Progress)) {
+                        level.scheduleTick(neighborPos, neighborState.getBlock(), this.tickRate);
+                    }
+                }
+            }
+        }
+
+        super.onRemove(blockState, level, blockPos, newState, movedByPiston);
+    }
+
     /**
      * Called when a neighboring block was changed and marks that this state should perform any checks during a neighbor
      * change. Cases may include when redstone power is updated, cactus blocks popping off due to a neighboring solid
@@ -161,19 +204,28 @@ public class BlockPhasic extends Block {
             return;
         }
 
-        EnumPhasingProgress progress = state.getValue(Phasing_Progress);
-        boolean phasingOut = state.getValue(Phasing_Out);
+        BlockRegionCache.Region region = ModRegistry.serverModRegistries.getPhasicRegionCache().getRegion(worldIn, pos);
 
-        // If the state is at base, progress trigger the phasing out to the neighboring blocks.
-        if (progress == EnumPhasingProgress.base) {
-            for (Direction facing : Direction.values()) {
-                Block currentBlock = worldIn.getBlockState(pos.relative(facing)).getBlock();
+        // Another block of the region is driving the phasing; a second driver would move the region twice as fast.
+        if (region.getController() != pos.asLong()) {
+            BlockPos controllerPos = BlockPos.of(region.getController());
+            BlockState controllerState = worldIn.getBlockState(controllerPos);
 
-                if (currentBlock instanceof BlockPhasic && !ServerEvents.RedstoneAffectedBlockPositions.contains(pos.relative(facing))) {
-                    worldIn.scheduleTick(pos.relative(facing), currentBlock, tickDelay);
-                }
+            if (!(controllerState.getBlock() instanceof BlockPhasic)) {
+                region.setController(pos.asLong());
+            } else if (BlockPhasic.inStep(controllerState, state)) {
+                return;
             }
 
+            // Otherwise this block came from a region which was joined with another one mid-phase; it keeps driving the
+            // blocks which are in step with it until they catch up with the controller.
+        }
+
+        EnumPhasingProgress progress = state.getValue(Phasing_Progress);
+        boolean phasingOut = state.getValue(Phasing_Out);
+
+        // If the state is at base, the whole region starts phasing out.
+        if (progress == EnumPhasingProgress.base) {
             phasingOut = true;
         }
 
@@ -198,16 +250,24 @@ public class BlockPhasic extends Block {
         }
 
         updatedMeta = phasingOut ? updatedMeta + 2 : updatedMeta - 2;
-        progress = EnumPhasingProgress.ValueOf(updatedMeta);
+        BlockState updatedState = state.setValue(Phasing_Out, phasingOut).setValue(Phasing_Progress, EnumPhasingProgress.ValueOf(updatedMeta));
 
-        // Update the state in the world, update the world and (possibly) schedule a state update.
-        state = state.setValue(Phasing_Out, phasingOut).setValue(Phasing_Progress, progress);
-        worldIn.setBlock(pos, state, 3);
+        // Every block of the region which is in step with this one moves to the next phase together with it.
+        ArrayList<BlockPos> positionsToUpdate = new ArrayList<>();
 
-        /*if (worldIn.isRemote) {
-            ClientLevelclientLevel= (ClientWorld) worldIn;
-            clientWorld.markSurroundingsForRerender(pos.getX(), pos.getY(), pos.getZ());
-        }*/
+        for (LongIterator iterator = region.getPositions().iterator(); iterator.hasNext(); ) {
+            BlockPos memberPos = BlockPos.of(iterator.nextLong());
+            BlockState memberState = worldIn.getBlockState(memberPos);
+
+            if (memberState.getBlock() instanceof BlockPhasic
+                    && memberState.getValue(Phasing_Progress) == progress
+                    && (progress == EnumPhasingProgress.base || memberState.getValue(Phasing_Out) == state.getValue(Phasing_Out))
+                    && !ServerEvents.RedstoneAffectedBlockPositions.contains(memberPos)) {
+                positionsToUpdate.add(memberPos);
+            }
+        }
+
+        BlockRegionCache.setStates(worldIn, positionsToUpdate, updatedState, BlockPhasic::isPhasic);
 
         if (tickDelay > 0) {
             worldIn.scheduleTick(pos, this, tickDelay);
@@ -275,77 +335,59 @@ public class BlockPhasic extends Block {
         return progress == EnumPhasingProgress.transparent;
     }
 
+    /**
+     * Determines if a block state is a phasic block.
+     *
+     * @param blockState The block state to check.
+     * @return True if the state belongs to a phasic block, otherwise false.
+     */
+    public static boolean isPhasic(BlockState blockState) {
+        return blockState.getBlock() instanceof BlockPhasic;
+    }
+
+    /**
+     * Determines if two phasic blocks are at the same point of their phasing.
+     */
+    private static boolean inStep(BlockState first, BlockState second) {
+        EnumPhasingProgress progress = first.getValue(Phasing_Progress);
+
+        return progress == second.getValue(Phasing_Progress)
+                && (progress == EnumPhasingProgress.base || first.getValue(Phasing_Out) == second.getValue(Phasing_Out));
+    }
+
     protected void updateNeighborPhasicBlocks(boolean setToTransparent, Level worldIn, BlockPos pos, BlockState phasicBlockState, boolean setCurrentBlock,
                                               boolean triggeredByRedstone) {
-        ArrayList<BlockPos> blocksToUpdate = new ArrayList<BlockPos>();
+        EnumPhasingProgress desiredProgress = setToTransparent ? EnumPhasingProgress.transparent : EnumPhasingProgress.base;
         BlockState updatedBlockState = phasicBlockState
                 .setValue(Phasing_Out, setToTransparent)
-                .setValue(Phasing_Progress, setToTransparent ? EnumPhasingProgress.transparent : EnumPhasingProgress.base);
+                .setValue(Phasing_Progress, desiredProgress);
 
         // Set this block and all neighbor Phasic Blocks to transparent. This will cascade to all touching Phasic
-        // blocks.
-        this.findNeighborPhasicBlocks(worldIn, pos, updatedBlockState, 0, blocksToUpdate, setCurrentBlock);
-
-        for (BlockPos positionToUpdate : blocksToUpdate) {
-            worldIn.setBlock(positionToUpdate, updatedBlockState, 3);
+        // blocks; blocks which are already in the correct state don't cascade to their neighbors.
+        LongOpenHashSet foundPositions = BlockRegionCache.findConnected(worldIn, pos,
+                blockState -> blockState.getBlock() instanceof BlockPhasic && blockState.getValue(Phasing_Progress) != desiredProgress);
 
-            if (triggeredByRedstone) {
-                if (ServerEvents.RedstoneAffectedBlockPositions.contains(positionToUpdate) && !setToTransparent) {
-                    ServerEvents.RedstoneAffectedBlockPositions.remove(positionToUpdate);
-                } else if (!ServerEvents.RedstoneAffectedBlockPositions.contains(positionToUpdate) && setToTransparent) {
-                    ServerEvents.RedstoneAffectedBlockPositions.add(positionToUpdate);
-                }
-            }
+        if (!setCurrentBlock) {
+            foundPositions.remove(pos.asLong());
         }
-    }
 
-    /**
-     * Sets the powered status and updates the block's neighbor.
-     *
-     * @param worldIn           The world where the block resides.
-     * @param pos               The position of the block.
-     * @param desiredBlockState The current state of the block at the position.
-     * @param cascadeCount      The number of times it has cascaded.
-     * @param cascadedBlockPos  The list of cascaded block positions, this is used to determine if this block should
-     *                          be processed again.
-     * @param setCurrentBlock   Determines if the current block should be set.
-     */
-    private int findNeighborPhasicBlocks(Level worldIn, BlockPos pos, BlockState desiredBlockState, int cascadeCount,
-                                         ArrayList<BlockPos> cascadedBlockPos, boolean setCurrentBlock) {
-        cascadeCount++;
-
-        if (cascadeCount > 100) {
-            return cascadeCount;
-        }
+        ArrayList<BlockPos> blocksToUpdate = new ArrayList<>(foundPositions.size());
 
-        if (setCurrentBlock) {
-            cascadedBlockPos.add(pos);
+        for (LongIterator iterator = foundPositions.iterator(); iterator.hasNext(); ) {
+            blocksToUpdate.add(BlockPos.of(iterator.nextLong()));
         }
 
-        for (Direction facing : Direction.values()) {
-            Block neighborBlock = worldIn.getBlockState(pos.relative(facing)).getBlock();
-
-            if (neighborBlock instanceof BlockPhasic) {
-                BlockState blockState = worldIn.getBlockState(pos.relative(facing));
+        BlockRegionCache.setStates(worldIn, blocksToUpdate, updatedBlockState, BlockPhasic::isPhasic);
 
-                // If the block is already in the correct state or was already checked, there is no need to cascade to
-                // it's neighbors.
-                EnumPhasingProgress progress = blockState.getValue(Phasing_Progress);
-
-                if (cascadedBlockPos.contains(pos.relative(facing)) || progress == desiredBlockState.getValue(Phasing_Progress)) {
-                    continue;
-                }
-
-                setCurrentBlock = true;
-                cascadeCount = this.findNeighborPhasicBlocks(worldIn, pos.relative(facing), desiredBlockState, cascadeCount, cascadedBlockPos, setCurrentBlock);
-
-                if (cascadeCount > 100) {
-                    break;
+        if (triggeredByRedstone) {
+            for (BlockPos positionToUpdate : blocksToUpdate) {
+                if (ServerEvents.RedstoneAffectedBlockPositions.contains(positionToUpdate) && !setToTransparent) {
+                    ServerEvents.RedstoneAffectedBlockPositions.remove(positionToUpdate);
+                } else if (!ServerEvents.RedstoneAffectedBlockPositions.contains(positionToUpdate) && setToTransparent) {
+                    ServerEvents.RedstoneAffectedBlockPositions.add(positionToUpdate);
                 }
             }
         }
-
-        return cascadeCount;
     }
 
     /**
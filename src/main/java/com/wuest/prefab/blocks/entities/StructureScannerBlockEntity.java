@@ -5,7 +5,8 @@ import com.wuest.prefab.base.TileEntityBase;
 import com.wuest.prefab.config.StructureScannerConfig;
 import com.wuest.prefab.structures.base.BuildClear;
 import com.wuest.prefab.structures.base.BuildShape;
-import com.wuest.prefab.structures.base.Structure;
+import com.wuest.prefab.structures.base.SectionScanCache;
+import com.wuest.prefab.structures.base.StructureScanJob;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.server.level.ServerLevel;
@@ -14,6 +15,12 @@ import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 
 public class StructureScannerBlockEntity extends TileEntityBase<StructureScannerConfig> {
+    /**
+     * The per-section results of the last scan from this scanner. Rescanning the same region only re-scans the sections which changed.
+     * This is not saved with the block entity; the first scan after a restart is always a full scan.
+     */
+    private SectionScanCache lastScan;
+
     public StructureScannerBlockEntity(BlockPos pos, BlockState state) {
         super(ModRegistry.StructureScannerEntityType, pos, state);
 
@@ -56,22 +63,39 @@ public class StructureScannerBlockEntity extends TileEntityBase<StructureScanner
                 .relative(playerFacing.getClockWise(), buildShape.getWidth())
                 .above(buildShape.getHeight());
 
-        Structure.ScanStructure(
+        // The GUI always goes down 1 block for it's processing, so the scanner itself is 1 block up.
+        BlockEntity scannerEntity = serverWorld.getBlockEntity(config.blockPos.above());
+        StructureScannerBlockEntity scanner = scannerEntity instanceof StructureScannerBlockEntity ? (StructureScannerBlockEntity) scannerEntity : null;
+
+        // The scan runs over several ticks; the scanner's configuration is updated once the file has been written.
+        StructureScanJob scanJob = new StructureScanJob(
+                playerEntity,
                 serverWorld,
                 config.blockPos,
                 cornerPos,
                 otherCorner,
                 "..\\src\\main\\resources\\assets\\prefab\\structures\\" + config.structureZipName + ".gz",
                 clearedSpace,
-                playerFacing,
                 false,
-                false);
+                false,
+                scanner != null ? scanner.lastScan : null,
+                (completedJob) -> {
+                    BlockEntity blockEntity = serverWorld.getBlockEntity(config.blockPos);
 
-        BlockEntity blockEntity = serverWorld.getBlockEntity(config.blockPos);
+                    if (blockEntity != null && blockEntity.getClass() == StructureScannerBlockEntity.class) {
+                        StructureScannerBlockEntity structureScannerBlockEntity = (StructureScannerBlockEntity) blockEntity;
+                        structureScannerBlockEntity.setConfig(config);
+                    }
+
+                    if (scanner != null) {
+                        scanner.lastScan = completedJob.getSectionCache();
+                    }
+                });
+
+        StructureScanJob.start(scanJob);
+    }
 
-        if (blockEntity != null && blockEntity.getClass() == StructureScannerBlockEntity.class) {
-            StructureScannerBlockEntity structureScannerBlockEntity = (StructureScannerBlockEntity) blockEntity;
-            structureScannerBlockEntity.setConfig(config);
-        }
+    public static void CancelScan(StructureScannerConfig config, ServerLevel serverWorld) {
+        StructureScanJob.cancel(serverWorld, config.blockPos);
     }
 }
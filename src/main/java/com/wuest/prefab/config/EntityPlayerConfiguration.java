@@ -12,7 +12,7 @@ public class EntityPlayerConfiguration {
     public static final String PLAYER_ENTITY_TAG = "IsPlayerNew";
     public static final String GIVEN_HOUSEBUILDER_TAG = "givenHousebuilder";
     public static final String Built_Starter_house_Tag = "builtStarterHouse";
-    public static HashMap<UUID, EntityPlayerConfiguration> playerTagData = new HashMap<>();
+    public static final PlayerDataCache playerTagData = new PlayerDataCache();
     public boolean givenHouseBuilder = false;
     public boolean builtStarterHouse = false;
     private HashMap<String, StructureConfiguration> clientConfigurations = new HashMap<String, StructureConfiguration>();
@@ -22,15 +22,8 @@ public class EntityPlayerConfiguration {
 
     public static EntityPlayerConfiguration loadFromEntity(Player playerEntity) {
         // This is safe because the mix-in will have already loaded the player's data.
-        if (EntityPlayerConfiguration.playerTagData.containsKey(playerEntity.getUUID())) {
-            return EntityPlayerConfiguration.playerTagData.get(playerEntity.getUUID());
-        } else {
-            // This should only happen when it's a brand new player.
-            EntityPlayerConfiguration returnValue = new EntityPlayerConfiguration();
-            EntityPlayerConfiguration.playerTagData.put(playerEntity.getUUID(), returnValue);
-
-            return returnValue;
-        }
+        // Creating the data should only happen when it's a brand new player.
+        return EntityPlayerConfiguration.playerTagData.getOrCreate(playerEntity.getUUID(), EntityPlayerConfiguration::new);
     }
 
     public static EntityPlayerConfiguration loadFromTag(UUID playerUUID, CompoundTag tag) {
@@ -38,11 +31,7 @@ public class EntityPlayerConfiguration {
 
         returnValue.loadFromNBTTagCompound(tag);
 
-        if (EntityPlayerConfiguration.playerTagData.containsKey(playerUUID)) {
-            EntityPlayerConfiguration.playerTagData.replace(playerUUID, returnValue);
-        } else {
-            EntityPlayerConfiguration.playerTagData.put(playerUUID, returnValue);
-        }
+        EntityPlayerConfiguration.playerTagData.put(playerUUID, returnValue);
 
         return returnValue;
     }
@@ -1,10 +1,7 @@
 package com.wuest.prefab.config;
 
-import com.wuest.prefab.structures.config.BasicStructureConfiguration;
-import com.wuest.prefab.structures.config.HouseAdvancedConfiguration;
-import com.wuest.prefab.structures.config.HouseConfiguration;
-import com.wuest.prefab.structures.config.HouseImprovedConfiguration;
-import com.wuest.prefab.structures.config.enums.BaseOption;
+import com.google.common.base.Strings;
+import com.wuest.prefab.Prefab;
 import me.shedaniel.autoconfig.ConfigData;
 import me.shedaniel.autoconfig.annotation.Config;
 import me.shedaniel.autoconfig.annotation.ConfigEntry;
@@ -12,6 +9,7 @@ import me.shedaniel.cloth.clothconfig.shadowed.blue.endless.jankson.Comment;
 import net.minecraft.nbt.CompoundTag;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -30,6 +28,9 @@ public class ModConfiguration implements ConfigData {
     @Comment("Enables preview buttons in screens")
     public boolean enableStructurePreview = true;
 
+    @Comment("Distance in blocks up to which a structure preview is drawn in full; further parts are drawn as an outline")
+    public int structurePreviewDetailDistance = 64;
+
     @Comment("Bulldozer makes drops")
     public boolean allowBulldozerToCreateDrops = true;
 
@@ -42,6 +43,15 @@ public class ModConfiguration implements ConfigData {
     @Comment("Play building sound when generating blueprint")
     public boolean playBuildingSound = true;
 
+    @Comment("Maximum number of structures a single player can have building at the same time")
+    public int maxConcurrentBuildsPerPlayer = 2;
+
+    @Comment("Maximum number of structures which can be building on the server at the same time")
+    public int maxConcurrentBuildsPerServer = 8;
+
+    @Comment("Maximum number of structure requests which can wait for a free build slot")
+    public int maxQueuedBuilds = 32;
+
     @ConfigEntry.Category("recipes")
     public HashMap<String, Boolean> recipes = new HashMap<>();
 
@@ -56,6 +66,23 @@ public class ModConfiguration implements ConfigData {
     @ConfigEntry.Category("structure_options")
     public HashMap<String, HashMap<String, Boolean>> structureOptions = new HashMap<>();
 
+    /**
+     * The recipe options compiled into a bitset indexed by the position of each key in {@link ConfigKeyNames#Keys}.
+     * This is rebuilt whenever the recipe options change and replaced as a whole so readers never see a partial update.
+     */
+    @ConfigEntry.Gui.Excluded
+    private transient volatile BitSet enabledRecipes = new BitSet();
+
+    @ConfigEntry.Gui.Excluded
+    private static HashMap<String, Integer> recipeIndexes;
+
+    /**
+     * The structure options compiled into a bitset laid out by {@link StructureOptionLayout}.
+     * This is rebuilt whenever the structure options change and replaced as a whole so readers never see a partial update.
+     */
+    @ConfigEntry.Gui.Excluded
+    private transient volatile BitSet enabledStructureOptions = new BitSet();
+
     public ModConfiguration() {
         this.initialize();
     }
@@ -65,97 +92,107 @@ public class ModConfiguration implements ConfigData {
         this.initialize();
     }
 
-    protected void initialize() {
-        for (String key : ConfigKeyNames.Keys) {
-            if (!this.recipes.containsKey(key)) {
-                this.recipes.put(key, true);
+    /**
+     * Gets the index of a recipe's configuration key.
+     *
+     * @param configName The configuration key of the recipe.
+     * @return The index of the key or -1 when the recipe can't be turned off.
+     */
+    public static int getRecipeIndex(String configName) {
+        if (ModConfiguration.recipeIndexes == null) {
+            HashMap<String, Integer> indexes = new HashMap<>();
+
+            for (int i = 0; i < ConfigKeyNames.Keys.length; i++) {
+                indexes.put(ConfigKeyNames.Keys[i], i);
             }
-        }
 
-        // Add the Basic structure settings.
-        for (BasicStructureConfiguration.EnumBasicStructureName value : BasicStructureConfiguration.EnumBasicStructureName.values()) {
-            if (value.getName().equals("custom")) {
-                continue;
-            }
+            ModConfiguration.recipeIndexes = indexes;
+        }
 
-            String key = value.getItemTranslationString();
-            ArrayList<BaseOption> options = value.getBaseOption().getSpecificOptions();
+        return Strings.isNullOrEmpty(configName) ? -1 : ModConfiguration.recipeIndexes.getOrDefault(configName, -1);
+    }
 
-            if (options.size() > 1) {
-                HashMap<String, Boolean> structureOptions;
+    /**
+     * Determines if a recipe is enabled.
+     *
+     * @param recipeIndex The index of the recipe from {@link #getRecipeIndex(String)}.
+     * @return True if the recipe is enabled or can't be turned off, otherwise false.
+     */
+    public boolean isRecipeEnabled(int recipeIndex) {
+        return recipeIndex < 0 || this.enabledRecipes.get(recipeIndex);
+    }
 
-                if (this.structureOptions.containsKey(key)) {
-                    structureOptions = this.structureOptions.get(key);
-                }
-                else {
-                    structureOptions = new HashMap<>();
-                }
+    /**
+     * Compiles the recipe options into the bitset used by {@link #isRecipeEnabled(int)}.
+     * Recipes without an option are enabled.
+     */
+    public void compileRecipes() {
+        BitSet compiledRecipes = new BitSet(ConfigKeyNames.Keys.length);
 
-                for (BaseOption option : options) {
-                    if (!structureOptions.containsKey(option.getTranslationString())) {
-                        structureOptions.put(option.getTranslationString(), true);
-                    }
-                }
+        for (int i = 0; i < ConfigKeyNames.Keys.length; i++) {
+            Boolean enabled = this.recipes.get(ConfigKeyNames.Keys[i]);
 
-                if (!this.structureOptions.containsKey(key)) {
-                    this.structureOptions.put(key, structureOptions);
-                }
+            if (enabled == null || enabled) {
+                compiledRecipes.set(i);
             }
         }
 
-        // Add the basic house settings.
-        String structureOptionsKey = "item.prefab.item_house";
-        HashMap<String, Boolean> houseOptions;
+        this.enabledRecipes = compiledRecipes;
+    }
 
-        if (this.structureOptions.containsKey(structureOptionsKey)) {
-            houseOptions = this.structureOptions.get(structureOptionsKey);
-        }
-        else {
-            houseOptions = new HashMap<>();
-            this.structureOptions.put(structureOptionsKey, houseOptions);
-        }
+    /**
+     * Determines if a structure option is enabled.
+     *
+     * @param structureOffset The offset of the structure from {@link StructureOptionLayout#getOffset(String)}.
+     * @param optionIndex     The index of the option within the structure's options.
+     * @return True if the option is enabled or the structure has no options which can be turned off, otherwise false.
+     */
+    public boolean isStructureOptionEnabled(int structureOffset, int optionIndex) {
+        return structureOffset < 0 || this.enabledStructureOptions.get(structureOffset + optionIndex);
+    }
 
-        for (HouseConfiguration.HouseStyle houseStyle : HouseConfiguration.HouseStyle.values()) {
-            if (!houseOptions.containsKey(houseStyle.getTranslationString())) {
-                houseOptions.put(houseStyle.getTranslationString(), true);
-            }
-        }
+    /**
+     * Compiles the structure options into the bitset used by {@link #isStructureOptionEnabled(int, int)}.
+     * Options which are missing from the structure options are disabled.
+     */
+    public void compileStructureOptions() {
+        BitSet compiledOptions = new BitSet(StructureOptionLayout.getSize());
 
-        // Add the Improved house settings.
-        structureOptionsKey = "item.prefab.item_house_improved";
-        HashMap<String, Boolean> houseImprovedOptions;
+        for (Map.Entry<String, ArrayList<String>> structure : StructureOptionLayout.getStructures().entrySet()) {
+            HashMap<String, Boolean> options = this.structureOptions.get(structure.getKey());
+            int offset = StructureOptionLayout.getOffset(structure.getKey());
 
-        if (this.structureOptions.containsKey(structureOptionsKey)) {
-            houseImprovedOptions = this.structureOptions.get(structureOptionsKey);
-        }
-        else {
-            houseImprovedOptions = new HashMap<>();
-            this.structureOptions.put(structureOptionsKey, houseImprovedOptions);
-        }
+            for (int i = 0; i < structure.getValue().size(); i++) {
+                Boolean enabled = options != null ? options.get(structure.getValue().get(i)) : null;
 
-        for (HouseImprovedConfiguration.HouseStyle houseStyle : HouseImprovedConfiguration.HouseStyle.values()) {
-            if (!houseImprovedOptions.containsKey(houseStyle.getTranslationString())) {
-                houseImprovedOptions.put(houseStyle.getTranslationString(), true);
+                if (enabled != null && enabled) {
+                    compiledOptions.set(offset + i);
+                }
             }
         }
 
-        // Add the Advanced house settings.
-        structureOptionsKey = "item.prefab.item_house_advanced";
-        HashMap<String, Boolean> houseAdvancedOptions;
+        this.enabledStructureOptions = compiledOptions;
+    }
 
-        if (this.structureOptions.containsKey(structureOptionsKey)) {
-            houseAdvancedOptions = this.structureOptions.get(structureOptionsKey);
-        }
-        else {
-            houseAdvancedOptions = new HashMap<>();
-            this.structureOptions.put(structureOptionsKey, houseAdvancedOptions);
+    protected void initialize() {
+        for (String key : ConfigKeyNames.Keys) {
+            if (!this.recipes.containsKey(key)) {
+                this.recipes.put(key, true);
+            }
         }
 
-        for (HouseAdvancedConfiguration.HouseStyle houseStyle : HouseAdvancedConfiguration.HouseStyle.values()) {
-            if (!houseAdvancedOptions.containsKey(houseStyle.getTranslationString())) {
-                houseAdvancedOptions.put(houseStyle.getTranslationString(), true);
+        this.compileRecipes();
+
+        // Add every structure option which is missing; options are enabled by default.
+        for (Map.Entry<String, ArrayList<String>> structure : StructureOptionLayout.getStructures().entrySet()) {
+            HashMap<String, Boolean> options = this.structureOptions.computeIfAbsent(structure.getKey(), key -> new HashMap<>());
+
+            for (String option : structure.getValue()) {
+                options.putIfAbsent(option, true);
             }
         }
+
+        this.compileStructureOptions();
     }
 
     public CompoundTag writeCompoundTag() {
@@ -194,20 +231,9 @@ public class ModConfiguration implements ConfigData {
             tag.putBoolean(entry.getKey(), entry.getValue());
         }
 
-        CompoundTag structureOptionTag = new CompoundTag();
-
-        for (Map.Entry<String, HashMap<String, Boolean>> entry : this.structureOptions.entrySet()) {
-            // Create compound tag for this item.
-            CompoundTag mainItem = new CompoundTag();
-
-            for (Map.Entry<String, Boolean> subEntry : entry.getValue().entrySet()) {
-                mainItem.putBoolean(subEntry.getKey(), subEntry.getValue());
-            }
-
-            structureOptionTag.put(entry.getKey(), mainItem);
-        }
-
-        tag.put(ConfigKeyNames.structureOptionsName, structureOptionTag);
+        // The structure options are sent as their compiled bits along with the hash of the layout the bits follow.
+        tag.putInt(ConfigKeyNames.structureOptionLayoutName, StructureOptionLayout.getHash());
+        tag.putLongArray(ConfigKeyNames.structureOptionsName, this.enabledStructureOptions.toLongArray());
 
         return tag;
     }
@@ -250,22 +276,28 @@ public class ModConfiguration implements ConfigData {
             this.recipes.put(key, tag.getBoolean(key));
         }
 
-        CompoundTag structureOptionsTag = tag.getCompound(ConfigKeyNames.structureOptionsName);
+        this.compileRecipes();
 
-        if (structureOptionsTag != null) {
-            for (String key : structureOptionsTag.getAllKeys()) {
-                CompoundTag mainItem = structureOptionsTag.getCompound(key);
-                HashMap<String, Boolean> structureOptions = new HashMap<>();
+        boolean matchingLayout = tag.getInt(ConfigKeyNames.structureOptionLayoutName) == StructureOptionLayout.getHash();
+        BitSet structureOptionBits = BitSet.valueOf(tag.getLongArray(ConfigKeyNames.structureOptionsName));
 
-                for (String subKey : mainItem.getAllKeys()) {
-                    boolean value = mainItem.getBoolean(subKey);
+        if (!matchingLayout) {
+            // The other side has different structures or options; its bits can't be read so every option stays enabled.
+            Prefab.logger.warn("Structure options were sent for a different set of structures; all structure options are enabled.");
+        }
 
-                    structureOptions.put(subKey, value);
-                }
+        for (Map.Entry<String, ArrayList<String>> structure : StructureOptionLayout.getStructures().entrySet()) {
+            HashMap<String, Boolean> structureOptions = new HashMap<>();
+            int offset = StructureOptionLayout.getOffset(structure.getKey());
 
-                this.structureOptions.put(key, structureOptions);
+            for (int i = 0; i < structure.getValue().size(); i++) {
+                structureOptions.put(structure.getValue().get(i), !matchingLayout || structureOptionBits.get(offset + i));
             }
+
+            this.structureOptions.put(structure.getKey(), structureOptions);
         }
+
+        this.compileStructureOptions();
     }
 
     public enum StartingItemOptions {
@@ -407,5 +439,6 @@ public class ModConfiguration implements ConfigData {
 
         // Structure option names.
         static String structureOptionsName = "Structure Options";
+        static String structureOptionLayoutName = "Structure Option Layout";
     }
 }
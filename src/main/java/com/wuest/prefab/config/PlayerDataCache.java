@@ -0,0 +1,130 @@
+package com.wuest.prefab.config;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * This class holds the Prefab data of players by their UUID.
+ * The data of online players is never evicted since it's written back whenever the player is saved. A player who leaves
+ * stays pinned until the end of the tick, after they were saved; from then on their data is kept for as long as they are
+ * among the {@link #MaximumOfflineEntries} most recently used players who aren't online. Anything older is read again from
+ * the player's saved data by the save data mix-in when the player returns.
+ * All methods are synchronized so the cache can be used from the server and client threads.
+ */
+public class PlayerDataCache {
+    /**
+     * The number of players who aren't online whose data is kept.
+     */
+    public static final int MaximumOfflineEntries = 256;
+
+    private final LinkedHashMap<UUID, EntityPlayerConfiguration> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final HashSet<UUID> onlinePlayers = new HashSet<>();
+    private final HashSet<UUID> leftPlayers = new HashSet<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Gets the data of a player.
+     *
+     * @param playerUUID The UUID of the player.
+     * @return The data of the player or null if it isn't cached.
+     */
+    public synchronized EntityPlayerConfiguration get(UUID playerUUID) {
+        EntityPlayerConfiguration configuration = this.entries.get(playerUUID);
+        (configuration != null ? this.hits : this.misses).increment();
+
+        return configuration;
+    }
+
+    /**
+     * Gets the data of a player, creating it if it isn't cached.
+     *
+     * @param playerUUID The UUID of the player.
+     * @param factory    Creates the data when it isn't cached.
+     * @return The cached or created data of the player.
+     */
+    public synchronized EntityPlayerConfiguration getOrCreate(UUID playerUUID, Supplier<EntityPlayerConfiguration> factory) {
+        EntityPlayerConfiguration configuration = this.get(playerUUID);
+
+        if (configuration == null) {
+            configuration = factory.get();
+            this.put(playerUUID, configuration);
+        }
+
+        return configuration;
+    }
+
+    public synchronized void put(UUID playerUUID, EntityPlayerConfiguration configuration) {
+        this.entries.put(playerUUID, configuration);
+        this.evict();
+    }
+
+    /**
+     * Marks a player as online so their data isn't evicted.
+     *
+     * @param playerUUID The UUID of the player who joined.
+     */
+    public synchronized void onPlayerJoined(UUID playerUUID) {
+        this.onlinePlayers.add(playerUUID);
+        this.leftPlayers.remove(playerUUID);
+    }
+
+    /**
+     * Marks a player as having left so their data can be evicted after the next call to {@link #releaseLeftPlayers()}.
+     * The player stays pinned until then because they are only saved after the disconnect has been handled; evicting the
+     * data before that would save default data in its place.
+     *
+     * @param playerUUID The UUID of the player who left.
+     */
+    public synchronized void onPlayerLeft(UUID playerUUID) {
+        this.leftPlayers.add(playerUUID);
+    }
+
+    /**
+     * Unpins the players who left since the last call so their data is subject to the bound on players who aren't online.
+     * This is called at the end of each server tick, after those players were saved.
+     */
+    public synchronized void releaseLeftPlayers() {
+        if (!this.leftPlayers.isEmpty()) {
+            this.onlinePlayers.removeAll(this.leftPlayers);
+            this.leftPlayers.clear();
+            this.evict();
+        }
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+        this.onlinePlayers.clear();
+        this.leftPlayers.clear();
+        this.hits.reset();
+        this.misses.reset();
+    }
+
+    /**
+     * Gets the share of lookups which found cached data.
+     *
+     * @return A value between 0 and 1; 0 when there were no lookups.
+     */
+    public double getHitRate() {
+        long hitCount = this.hits.sum();
+        long lookups = hitCount + this.misses.sum();
+
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<UUID, EntityPlayerConfiguration>> iterator = this.entries.entrySet().iterator();
+
+        // The iteration order is least recently used first.
+        while (this.entries.size() > this.onlinePlayers.size() + PlayerDataCache.MaximumOfflineEntries && iterator.hasNext()) {
+            if (!this.onlinePlayers.contains(iterator.next().getKey())) {
+                iterator.remove();
+            }
+        }
+    }
+}
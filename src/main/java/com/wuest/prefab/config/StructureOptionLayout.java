@@ -0,0 +1,116 @@
+package com.wuest.prefab.config;
+
+import com.wuest.prefab.structures.config.BasicStructureConfiguration;
+import com.wuest.prefab.structures.config.HouseAdvancedConfiguration;
+import com.wuest.prefab.structures.config.HouseConfiguration;
+import com.wuest.prefab.structures.config.HouseImprovedConfiguration;
+import com.wuest.prefab.structures.config.enums.BaseOption;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class defines the order of every structure option which can be turned off in the configuration.
+ * The options of a structure take up a consecutive range of indexes, in the order the structure lists them, so the
+ * options can be kept in a bitset instead of nested string maps.
+ * The hash identifies the layout so two sides only exchange option bits when they agree on what the bits mean.
+ */
+public class StructureOptionLayout {
+    private static final LinkedHashMap<String, ArrayList<String>> structures = new LinkedHashMap<>();
+    private static final HashMap<String, Integer> offsets = new HashMap<>();
+    private static int size;
+    private static int hash;
+
+    static {
+        // Basic structures only have options when they can be built in more than one way.
+        for (BasicStructureConfiguration.EnumBasicStructureName value : BasicStructureConfiguration.EnumBasicStructureName.values()) {
+            if (value.getName().equals("custom")) {
+                continue;
+            }
+
+            ArrayList<BaseOption> options = value.getBaseOption().getSpecificOptions();
+
+            if (options.size() > 1) {
+                ArrayList<String> optionKeys = new ArrayList<>();
+
+                for (BaseOption option : options) {
+                    optionKeys.add(option.getTranslationString());
+                }
+
+                StructureOptionLayout.add(value.getItemTranslationString(), optionKeys);
+            }
+        }
+
+        // The house styles are indexed by their ordinal.
+        ArrayList<String> houseStyles = new ArrayList<>();
+
+        for (HouseConfiguration.HouseStyle houseStyle : HouseConfiguration.HouseStyle.values()) {
+            houseStyles.add(houseStyle.getTranslationString());
+        }
+
+        StructureOptionLayout.add("item.prefab.item_house", houseStyles);
+
+        ArrayList<String> houseImprovedStyles = new ArrayList<>();
+
+        for (HouseImprovedConfiguration.HouseStyle houseStyle : HouseImprovedConfiguration.HouseStyle.values()) {
+            houseImprovedStyles.add(houseStyle.getTranslationString());
+        }
+
+        StructureOptionLayout.add("item.prefab.item_house_improved", houseImprovedStyles);
+
+        ArrayList<String> houseAdvancedStyles = new ArrayList<>();
+
+        for (HouseAdvancedConfiguration.HouseStyle houseStyle : HouseAdvancedConfiguration.HouseStyle.values()) {
+            houseAdvancedStyles.add(houseStyle.getTranslationString());
+        }
+
+        StructureOptionLayout.add("item.prefab.item_house_advanced", houseAdvancedStyles);
+    }
+
+    /**
+     * Gets the structures with options along with the keys of their options in index order.
+     *
+     * @return A read-only map keyed by the structure's item translation key.
+     */
+    public static Map<String, ArrayList<String>> getStructures() {
+        return Collections.unmodifiableMap(StructureOptionLayout.structures);
+    }
+
+    /**
+     * Gets the index of the first option of a structure.
+     *
+     * @param structureKey The item translation key of the structure.
+     * @return The index of the structure's first option or -1 when the structure has no options which can be turned off.
+     */
+    public static int getOffset(String structureKey) {
+        return StructureOptionLayout.offsets.getOrDefault(structureKey, -1);
+    }
+
+    /**
+     * Gets the number of options in the layout.
+     */
+    public static int getSize() {
+        return StructureOptionLayout.size;
+    }
+
+    /**
+     * Gets the hash of every structure and option key in index order.
+     */
+    public static int getHash() {
+        return StructureOptionLayout.hash;
+    }
+
+    private static void add(String structureKey, ArrayList<String> optionKeys) {
+        StructureOptionLayout.structures.put(structureKey, optionKeys);
+        StructureOptionLayout.offsets.put(structureKey, StructureOptionLayout.size);
+        StructureOptionLayout.size += optionKeys.size();
+        StructureOptionLayout.hash = 31 * StructureOptionLayout.hash + structureKey.hashCode();
+
+        for (String optionKey : optionKeys) {
+            StructureOptionLayout.hash = 31 * StructureOptionLayout.hash + optionKey.hashCode();
+        }
+    }
+}
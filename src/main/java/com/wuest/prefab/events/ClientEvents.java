@@ -2,7 +2,9 @@ package com.wuest.prefab.events;
 
 import com.wuest.prefab.ClientModRegistry;
 import com.wuest.prefab.ModRegistry;
+import com.wuest.prefab.Prefab;
 import com.wuest.prefab.Utils;
+import com.wuest.prefab.network.message.ConfigHashPayload;
 import com.wuest.prefab.structures.config.BasicStructureConfiguration;
 import com.wuest.prefab.structures.events.StructureClientEventHandler;
 import com.wuest.prefab.structures.gui.GuiStructure;
@@ -12,6 +14,7 @@ import com.wuest.prefab.structures.messages.StructurePayload;
 import com.wuest.prefab.structures.messages.StructureTagMessage;
 import com.wuest.prefab.structures.render.StructureRenderHandler;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.minecraft.client.Minecraft;
 import net.minecraft.network.FriendlyByteBuf;
@@ -27,6 +30,15 @@ public class ClientEvents {
         StructureClientEventHandler.registerStructureClientSideEvents();
 
         ClientEvents.registerClientEndTick();
+
+        ClientEvents.registerClientJoin();
+    }
+
+    public static void registerClientJoin() {
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
+            // Tell the server which configuration this client already has; the server only sends its own when it differs.
+            sender.sendPacket(new ConfigHashPayload(ConfigHashPayload.hashOf(Prefab.serverConfiguration.writeCompoundTag())));
+        });
     }
 
     public static void registerClientEndTick() {
@@ -58,7 +70,7 @@ public class ClientEvents {
                         ClientPlayNetworking.send(payload);
                     }
 
-                    StructureRenderHandler.currentStructure = null;
+                    StructureRenderHandler.setStructure(null, null);
                 }
             }
         });
@@ -5,15 +5,17 @@ import com.wuest.prefab.Prefab;
 import com.wuest.prefab.Utils;
 import com.wuest.prefab.config.ModConfiguration;
 import com.wuest.prefab.items.ItemSickle;
+import com.wuest.prefab.network.message.ConfigHashPayload;
 import com.wuest.prefab.network.message.ConfigSyncPayload;
 import com.wuest.prefab.network.message.TagMessage;
 import com.wuest.prefab.registries.ModRegistries;
 import com.wuest.prefab.structures.events.StructureEventHandler;
 import me.shedaniel.autoconfig.AutoConfig;
-import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.server.level.ServerPlayer;
 
@@ -25,6 +27,13 @@ public class ServerEvents {
      */
     public static ArrayList<BlockPos> RedstoneAffectedBlockPositions = new ArrayList<>();
 
+    /**
+     * The configuration payload sent to clients and the hash of its contents.
+     * These are built once per configuration load instead of for every player who joins.
+     */
+    private static ConfigSyncPayload configSyncPayload;
+    private static long configSyncHash;
+
     static {
         ServerEvents.RedstoneAffectedBlockPositions = new ArrayList<>();
     }
@@ -34,7 +43,7 @@ public class ServerEvents {
 
         ServerEvents.serverStarted();
 
-        ServerEvents.playerJoinedServer();
+        ServerEvents.chunkLoadedOrUnloaded();
 
         StructureEventHandler.registerStructureServerSideEvents();
     }
@@ -51,19 +60,55 @@ public class ServerEvents {
             // Get the server configuration.
             // This will be pushed to the player when they join the world.
             Prefab.serverConfiguration = AutoConfig.getConfigHolder(ModConfiguration.class).getConfig();
+            ServerEvents.invalidateConfigSync();
 
             // Do this when the server starts so that all appropriate tags are used.
             ItemSickle.setEffectiveBlocks();
         });
     }
 
-    private static void playerJoinedServer() {
-        ServerEntityEvents.ENTITY_LOAD.register((entity, serverWorld) -> {
-            if (entity instanceof ServerPlayer) {
-                // Send the message to the client.
-                ConfigSyncPayload configSyncPayload = new ConfigSyncPayload(new TagMessage(Prefab.serverConfiguration.writeCompoundTag()));
-                ServerPlayNetworking.send((ServerPlayer) entity, configSyncPayload);
+    private static void chunkLoadedOrUnloaded() {
+        // The light switch registry indexes lamps and switches per chunk; a chunk is re-indexed the next time it's searched.
+        // Switches register themselves when their block entity is loaded and are dropped again when their chunk unloads.
+        ServerChunkEvents.CHUNK_LOAD.register((serverWorld, chunk) -> {
+            if (ModRegistry.serverModRegistries != null) {
+                ModRegistry.serverModRegistries.getLightSwitchRegistry().onChunkChanged(serverWorld, chunk.getPos());
+            }
+        });
+
+        ServerChunkEvents.CHUNK_UNLOAD.register((serverWorld, chunk) -> {
+            if (ModRegistry.serverModRegistries != null) {
+                ModRegistry.serverModRegistries.getLightSwitchRegistry().onChunkUnloaded(serverWorld, chunk.getPos());
+                ModRegistry.serverModRegistries.getPhasicRegionCache().onChunkUnloaded(serverWorld, chunk.getPos());
+                ModRegistry.serverModRegistries.getBoundaryRegionCache().onChunkUnloaded(serverWorld, chunk.getPos());
             }
         });
     }
+
+    /**
+     * Drops the cached configuration payload so it's rebuilt from the current server configuration.
+     */
+    public static void invalidateConfigSync() {
+        ServerEvents.configSyncPayload = null;
+    }
+
+    /**
+     * Sends the server configuration to a player who joined, unless the player already has the same configuration.
+     * Clients report the hash of the configuration they have when they join, which skips the payload on reconnects and
+     * server restarts where nothing changed.
+     *
+     * @param player     The player who joined.
+     * @param clientHash The hash of the configuration the player's client already has.
+     */
+    public static void sendConfigIfChanged(ServerPlayer player, long clientHash) {
+        if (ServerEvents.configSyncPayload == null) {
+            CompoundTag configTag = Prefab.serverConfiguration.writeCompoundTag();
+            ServerEvents.configSyncHash = ConfigHashPayload.hashOf(configTag);
+            ServerEvents.configSyncPayload = new ConfigSyncPayload(new TagMessage(configTag));
+        }
+
+        if (clientHash != ServerEvents.configSyncHash) {
+            ServerPlayNetworking.send(player, ServerEvents.configSyncPayload);
+        }
+    }
 }
@@ -129,6 +129,33 @@ public class GuiLangKeys {
     @Unlocalized(name = "Cannot build structure due to protected blocks/area or unbreakable blocks are in the area. Block Name: %1$s Block Position: x=%2$s, y=%3$s, z=%4$s")
     public static final String GUI_STRUCTURE_NOBUILD = "prefab.gui.structure.nobuild";
 
+    @Unlocalized(name = "Too many structures are being built right now. Your structure has been queued at position %1$s.")
+    public static final String GUI_STRUCTURE_QUEUED = "prefab.gui.structure.queued";
+
+    @Unlocalized(name = "Too many structures are waiting to be built. Please try again later.")
+    public static final String GUI_STRUCTURE_QUEUE_FULL = "prefab.gui.structure.queue_full";
+
+    @Unlocalized(name = "Your queued structure was not built because you are no longer holding its item or you left the dimension.")
+    public static final String GUI_STRUCTURE_QUEUE_DROPPED = "prefab.gui.structure.queue_dropped";
+
+    @Unlocalized(name = "Scanning structure... %1$s%%")
+    public static final String GUI_SCAN_PROGRESS = "prefab.gui.scan.progress";
+
+    @Unlocalized(name = "Structure scan complete. %1$s blocks were saved.")
+    public static final String GUI_SCAN_COMPLETE = "prefab.gui.scan.complete";
+
+    @Unlocalized(name = "Structure scan complete. %1$s blocks were saved; %2$s of %3$s sections were unchanged since the last scan.")
+    public static final String GUI_SCAN_COMPLETE_RESCAN = "prefab.gui.scan.complete_rescan";
+
+    @Unlocalized(name = "Structure scan cancelled.")
+    public static final String GUI_SCAN_CANCELLED = "prefab.gui.scan.cancelled";
+
+    @Unlocalized(name = "The structure file could not be written. Check the log for details.")
+    public static final String GUI_SCAN_FAILED = "prefab.gui.scan.failed";
+
+    @Unlocalized(name = "This structure scanner is already scanning. Cancel the current scan before starting another one.")
+    public static final String GUI_SCAN_IN_PROGRESS = "prefab.gui.scan.in_progress";
+
     @Unlocalized(name = "Build!")
     public static final String GUI_BUTTON_BUILD = "prefab.gui.button.build";
 
@@ -9,9 +9,11 @@ import com.wuest.prefab.config.StructureScannerConfig;
 import com.wuest.prefab.gui.GuiBase;
 import com.wuest.prefab.gui.controls.ExtendedButton;
 import com.wuest.prefab.gui.controls.GuiTextBox;
+import com.wuest.prefab.network.message.ScanCancelPayload;
 import com.wuest.prefab.network.message.ScanShapePayload;
 import com.wuest.prefab.network.message.ScannerConfigPayload;
 import com.wuest.prefab.network.message.ScannerInfo;
+import com.wuest.prefab.structures.render.StructureRenderHandler;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.components.AbstractButton;
@@ -42,6 +44,7 @@ public class GuiStructureScanner extends GuiBase {
     private GuiTextBox txtZipName;
     private ExtendedButton btnScan;
     private ExtendedButton btnSet;
+    private ExtendedButton btnCancelScan;
 
     public GuiStructureScanner(BlockPos blockPos, Level world, StructureScannerConfig config) {
         super("Structure Scanner");
@@ -100,6 +103,7 @@ public class GuiStructureScanner extends GuiBase {
         this.addRenderableWidget(this.txtZipName);
 
         this.btnSet = this.createAndAddButton(adjustedX + 25, adjustedY + 140, 90, 20, "Set And Close", null);
+        this.btnCancelScan = this.createAndAddButton(adjustedX + 120, adjustedY + 140, 75, 20, "Cancel Scan", null);
         this.btnScan = this.createAndAddCustomButton(adjustedX + 200, adjustedY + 140, 90, 20, "Scan");
     }
 
@@ -132,6 +136,9 @@ public class GuiStructureScanner extends GuiBase {
         if (button == this.btnScan) {
             this.sendScanPacket();
             this.closeScreen();
+        } else if (button == this.btnCancelScan) {
+            this.sendCancelScanPacket();
+            this.closeScreen();
         } else if (button == this.btnSet) {
             // Look through the list of scanners to see if it's already there, if so don't do anything.
             // Otherwise add it to the list of scanners.
@@ -153,6 +160,7 @@ public class GuiStructureScanner extends GuiBase {
             }
 
             ClientModRegistry.structureScanners.add(this.config);
+            StructureRenderHandler.invalidateScannerBoxes();
 
             this.closeScreen();
         } else {
@@ -196,6 +204,7 @@ public class GuiStructureScanner extends GuiBase {
                 this.config.blocksTall -= 1;
             }
 
+            StructureRenderHandler.invalidateScannerBoxes();
             this.sendUpdatePacket();
         }
     }
@@ -209,4 +218,9 @@ public class GuiStructureScanner extends GuiBase {
         ScanShapePayload scanShapePayload = new ScanShapePayload(new ScannerInfo(this.config));
         ClientPlayNetworking.send(scanShapePayload);
     }
+
+    private void sendCancelScanPacket() {
+        ScanCancelPayload scanCancelPayload = new ScanCancelPayload(new ScannerInfo(this.config));
+        ClientPlayNetworking.send(scanCancelPayload);
+    }
 }
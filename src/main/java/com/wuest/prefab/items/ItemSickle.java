@@ -2,11 +2,13 @@ package com.wuest.prefab.items;
 
 import com.wuest.prefab.Utils;
 import com.wuest.prefab.gui.GuiLangKeys;
+import com.wuest.prefab.structures.base.DropAggregator;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.core.BlockPos;
 import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.tags.BlockTags;
 import net.minecraft.world.entity.EquipmentSlot;
 import net.minecraft.world.entity.LivingEntity;
@@ -74,14 +76,19 @@ public class ItemSickle extends TieredItem {
                     && entityLiving instanceof Player) {
                 BlockPos corner1 = pos.north(this.breakRadius).east(this.breakRadius).above(this.breakRadius);
                 BlockPos corner2 = pos.south(this.breakRadius).west(this.breakRadius).below(this.breakRadius);
+                DropAggregator drops = new DropAggregator();
 
                 for (BlockPos currentPos : BlockPos.betweenClosed(corner1, corner2)) {
                     BlockState currentState = worldIn.getBlockState(currentPos);
 
                     if (currentState != null && ItemSickle.effectiveBlocks.contains(currentState.getBlock())) {
-                        worldIn.destroyBlock(currentPos, true);
+                        // Collect the drops so the whole swing produces merged stacks instead of an item per block.
+                        drops.addDrops((ServerLevel) worldIn, currentPos, currentState);
+                        worldIn.destroyBlock(currentPos, false);
                     }
                 }
+
+                drops.spawnAt(worldIn, pos);
             }
         }
 
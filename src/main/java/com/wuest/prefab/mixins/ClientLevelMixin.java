@@ -0,0 +1,18 @@
+package com.wuest.prefab.mixins;
+
+import com.wuest.prefab.structures.render.StructureRenderHandler;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientLevel.class)
+public class ClientLevelMixin {
+    @Inject(method = "sendBlockUpdated", at = @At(value = "HEAD"))
+    public void blockUpdated(BlockPos pos, BlockState oldState, BlockState newState, int flags, CallbackInfo ci) {
+        StructureRenderHandler.onClientBlockChanged(pos, newState);
+    }
+}
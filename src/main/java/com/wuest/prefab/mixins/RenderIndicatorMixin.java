@@ -1,9 +1,7 @@
 package com.wuest.prefab.mixins;
 
 import com.mojang.blaze3d.vertex.PoseStack;
-import com.mojang.blaze3d.vertex.VertexConsumer;
 import com.wuest.prefab.ClientModRegistry;
-import com.wuest.prefab.PrefabClient;
 import com.wuest.prefab.structures.render.StructureRenderHandler;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.MultiBufferSource;
@@ -22,9 +20,7 @@ public class RenderIndicatorMixin {
         if (prefabIndicatorMinecraft.player != null && (!prefabIndicatorMinecraft.player.isCrouching())) {
             StructureRenderHandler.RenderTest(prefabIndicatorMinecraft.level, matrices, vertexConsumers, (float)cameraX, (float)cameraY, (float)cameraZ);
 
-            VertexConsumer prefabBuffer = vertexConsumers.getBuffer(PrefabClient.PREVIEW_LAYER);
-
-            StructureRenderHandler.newRenderPlayerLook(prefabIndicatorMinecraft.player, matrices, prefabBuffer, cameraX, cameraY, cameraZ);
+            StructureRenderHandler.newRenderPlayerLook(prefabIndicatorMinecraft.player, matrices, vertexConsumers, cameraX, cameraY, cameraZ);
         }
 
         // It there are structure scanners; run the rendering for them now.
@@ -20,13 +20,10 @@ public class SavePlayerDataMixin {
 	@Inject(method = "addAdditionalSaveData", at = @At("TAIL"))
 	private void writeCustomDataToTag(CompoundTag tag, CallbackInfo ci) {
 		UUID prefabPlayerTag = this.gameProfile.getId();
-		EntityPlayerConfiguration prefabConfiguration;
+		EntityPlayerConfiguration prefabConfiguration = EntityPlayerConfiguration.playerTagData.get(prefabPlayerTag);
 
-		if (!EntityPlayerConfiguration.playerTagData.containsKey(prefabPlayerTag)) {
+		if (prefabConfiguration == null) {
 			prefabConfiguration = new EntityPlayerConfiguration();
-
-		} else {
-			prefabConfiguration = EntityPlayerConfiguration.playerTagData.get(prefabPlayerTag);
 		}
 
 		tag.put("PrefabTag", prefabConfiguration.createPlayerTag());
@@ -42,10 +39,7 @@ public class SavePlayerDataMixin {
 			prefabConfiguration.loadFromNBTTagCompound(tag.getCompound("PrefabTag"));
 		}
 
-		if (!EntityPlayerConfiguration.playerTagData.containsKey(prefabPlayerTag)) {
-			EntityPlayerConfiguration.playerTagData.put(prefabPlayerTag, prefabConfiguration);
-		} else {
-			EntityPlayerConfiguration.playerTagData.replace(prefabPlayerTag, prefabConfiguration);
-		}
+		// This is where evicted player data is loaded again when the player returns.
+		EntityPlayerConfiguration.playerTagData.put(prefabPlayerTag, prefabConfiguration);
 	}
 }
@@ -0,0 +1,81 @@
+package com.wuest.prefab.network.message;
+
+import com.wuest.prefab.Prefab;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Sent by a client when it joins a server with the hash of the server configuration it already has.
+ * The server only sends its configuration back when the hashes don't match.
+ */
+public class ConfigHashPayload implements CustomPacketPayload {
+    /**
+     * Part of every hash; bump this whenever the layout of the synced configuration changes so every client is sent it again.
+     */
+    private static final int FormatVersion = 1;
+
+    private final long configHash;
+
+    public static final CustomPacketPayload.Type<ConfigHashPayload> PACKET_TYPE = new CustomPacketPayload.Type<>(
+            new ResourceLocation(Prefab.MODID, "config_hash"));
+
+    public static final StreamCodec<FriendlyByteBuf, ConfigHashPayload> STREAM_CODEC = CustomPacketPayload.codec(
+            ConfigHashPayload::write,
+            ConfigHashPayload::new);
+
+    public ConfigHashPayload(long configHash) {
+        this.configHash = configHash;
+    }
+
+    public ConfigHashPayload(FriendlyByteBuf friendlyByteBuf) {
+        this(friendlyByteBuf.readLong());
+    }
+
+    /**
+     * Hashes the serialized bytes of a configuration tag.
+     * The tag's own hash code can't be used since it sums the hashes of its entries, so two changed values can cancel out.
+     *
+     * @param configTag The configuration tag to hash.
+     * @return The first 64 bits of the SHA-256 digest of the format version and the tag.
+     */
+    public static long hashOf(CompoundTag configTag) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(ConfigHashPayload.FormatVersion);
+            NbtIo.write(configTag, output);
+            output.flush();
+
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to hash the configuration", e);
+        }
+    }
+
+    public void write(FriendlyByteBuf buf) {
+        buf.writeLong(this.configHash);
+    }
+
+    @Override
+    public @NotNull Type<? extends CustomPacketPayload> type() {
+        return PACKET_TYPE;
+    }
+
+    public long configHash() {
+        return this.configHash;
+    }
+}
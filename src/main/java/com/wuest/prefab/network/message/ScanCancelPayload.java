@@ -0,0 +1,40 @@
+package com.wuest.prefab.network.message;
+
+import com.wuest.prefab.Prefab;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.NotNull;
+
+public class ScanCancelPayload implements CustomPacketPayload {
+    private final ScannerInfo scannerInfo;
+
+    public static final Type<ScanCancelPayload> PACKET_TYPE = new Type<>(
+            new ResourceLocation(Prefab.MODID, "structure_scanner_cancel"));
+
+    public static final StreamCodec<FriendlyByteBuf, ScanCancelPayload> STREAM_CODEC = CustomPacketPayload.codec(
+            ScanCancelPayload::write,
+            ScanCancelPayload::new);
+
+    public ScanCancelPayload(ScannerInfo scannerInfo) {
+        this.scannerInfo = scannerInfo;
+    }
+
+    public ScanCancelPayload(FriendlyByteBuf friendlyByteBuf) {
+        this(new ScannerInfo(friendlyByteBuf));
+    }
+
+    public void write(FriendlyByteBuf buf) {
+        this.scannerInfo.write(buf);
+    }
+
+    @Override
+    public @NotNull Type<? extends CustomPacketPayload> type() {
+        return PACKET_TYPE;
+    }
+
+    public ScannerInfo scannerInfo() {
+        return this.scannerInfo;
+    }
+}
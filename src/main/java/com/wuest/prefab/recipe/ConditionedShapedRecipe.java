@@ -1,11 +1,11 @@
 package com.wuest.prefab.recipe;
 
-import com.google.common.base.Strings;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import com.wuest.prefab.ModRegistry;
 import com.wuest.prefab.Prefab;
+import com.wuest.prefab.config.ModConfiguration;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.core.NonNullList;
 import net.minecraft.network.RegistryFriendlyByteBuf;
@@ -25,6 +25,7 @@ public class ConditionedShapedRecipe extends ShapedRecipe {
     final NonNullList<Ingredient> inputs;
     final String group;
     final String configName;
+    final int recipeIndex;
     final boolean recipeHasTags;
     ShapedRecipePattern pattern;
     ItemStack output;
@@ -50,6 +51,7 @@ public class ConditionedShapedRecipe extends ShapedRecipe {
         this.pattern = pattern;
         this.output = output;
         this.configName = configName;
+        this.recipeIndex = ModConfiguration.getRecipeIndex(configName);
         this.recipeHasTags = recipeHasTags;
         this.reloadedTags = false;
         this.showNotification = showNotification;
@@ -92,6 +94,11 @@ public class ConditionedShapedRecipe extends ShapedRecipe {
 
     @Override
     public boolean matches(CraftingContainer craftingInventory, Level level) {
+        // Disabled recipes never match, which keeps them from being crafted.
+        if (!Prefab.serverConfiguration.isRecipeEnabled(this.recipeIndex)) {
+            return false;
+        }
+
         // Make sure to re-load any ingredients associated with tags.
         // This is necessary due to changes in how tags are loaded and how we use configurable recipes.
         if (this.recipeHasTags && !this.reloadedTags) {
@@ -207,9 +214,7 @@ public class ConditionedShapedRecipe extends ShapedRecipe {
                 return ItemStack.EMPTY;
             }
 
-            if (!Strings.isNullOrEmpty(configName)
-                    && Prefab.serverConfiguration.recipes.containsKey(configName)
-                    && !Prefab.serverConfiguration.recipes.get(configName)) {
+            if (!Prefab.serverConfiguration.isRecipeEnabled(ModConfiguration.getRecipeIndex(configName))) {
                 // The configuration option for this recipe was turned off.
                 // Specify that the recipe has no output which basically makes it disabled.
                 return ItemStack.EMPTY;
@@ -1,12 +1,12 @@
 package com.wuest.prefab.recipe;
 
-import com.google.common.base.Strings;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import com.wuest.prefab.ModRegistry;
 import com.wuest.prefab.Prefab;
+import com.wuest.prefab.config.ModConfiguration;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.core.HolderLookup;
@@ -28,6 +28,7 @@ public class ConditionedShapelessRecipe extends ShapelessRecipe {
     private final ItemStack output;
     private final NonNullList<Ingredient> ingredients;
     private final String configName;
+    private final int recipeIndex;
 
     public ConditionedShapelessRecipe(
             String group,
@@ -43,6 +44,7 @@ public class ConditionedShapelessRecipe extends ShapelessRecipe {
         this.output = output;
         this.ingredients = ingredients;
         this.configName = configName;
+        this.recipeIndex = ModConfiguration.getRecipeIndex(configName);
     }
 
     @Override
@@ -68,6 +70,11 @@ public class ConditionedShapelessRecipe extends ShapelessRecipe {
 
     @Override
     public boolean matches(CraftingContainer craftingInventory, Level world) {
+        // Disabled recipes never match, which keeps them from being crafted.
+        if (!Prefab.serverConfiguration.isRecipeEnabled(this.recipeIndex)) {
+            return false;
+        }
+
         StackedContents stackedContents = new StackedContents();
         int i = 0;
 
@@ -169,9 +176,7 @@ public class ConditionedShapelessRecipe extends ShapelessRecipe {
                 return ItemStack.EMPTY;
             }
 
-            if (!Strings.isNullOrEmpty(configName)
-                    && Prefab.serverConfiguration.recipes.containsKey(configName)
-                    && !Prefab.serverConfiguration.recipes.get(configName)) {
+            if (!Prefab.serverConfiguration.isRecipeEnabled(ModConfiguration.getRecipeIndex(configName))) {
                 // The configuration option for this recipe was turned off.
                 // Specify that the recipe has no output which basically makes it disabled.
                 return ItemStack.EMPTY;
@@ -1,17 +1,20 @@
 package com.wuest.prefab.recipe;
 
-import com.google.common.base.Strings;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import com.wuest.prefab.Prefab;
+import com.wuest.prefab.config.ModConfiguration;
 import net.minecraft.network.RegistryFriendlyByteBuf;
 import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.world.Container;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.*;
+import net.minecraft.world.level.Level;
 
 public class ConditionedSmeltingRecipe extends SmeltingRecipe {
     private final String configName;
+    private final int recipeIndex;
 
     public ConditionedSmeltingRecipe(
             String group,
@@ -25,6 +28,13 @@ public class ConditionedSmeltingRecipe extends SmeltingRecipe {
         super(group, cookingBookCategory, input, output, experience, cookTime);
 
         this.configName = configName;
+        this.recipeIndex = ModConfiguration.getRecipeIndex(configName);
+    }
+
+    @Override
+    public boolean matches(Container container, Level level) {
+        // Disabled recipes never match, which keeps them from being smelted.
+        return Prefab.serverConfiguration.isRecipeEnabled(this.recipeIndex) && super.matches(container, level);
     }
 
     public static class Serializer implements RecipeSerializer<ConditionedSmeltingRecipe> {
@@ -80,9 +90,7 @@ public class ConditionedSmeltingRecipe extends SmeltingRecipe {
                 return ItemStack.EMPTY;
             }
 
-            if (!Strings.isNullOrEmpty(configName)
-                    && Prefab.serverConfiguration.recipes.containsKey(configName)
-                    && !Prefab.serverConfiguration.recipes.get(configName)) {
+            if (!Prefab.serverConfiguration.isRecipeEnabled(ModConfiguration.getRecipeIndex(configName))) {
                 // The configuration option for this recipe was turned off.
                 // Specify that the recipe has no output which basically makes it disabled.
                 return ItemStack.EMPTY;
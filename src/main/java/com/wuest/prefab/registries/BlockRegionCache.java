@@ -0,0 +1,344 @@
+package com.wuest.prefab.registries;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * This class caches the regions of connected blocks of a single kind per level.
+ * A region is found with a flood fill the first time one of its blocks asks for it. Every position maps straight to its
+ * region, so the cache works as a union-find with fully compressed paths: a placed block unions the regions around it by
+ * moving the smaller regions into the largest one, while a removed block drops the regions around it since a removal can
+ * split a region.
+ * A region whose flood fill reached a chunk which isn't loaded or stopped at the size limit is used but not cached, since
+ * it's missing some of its blocks; regions are dropped when one of their chunks is unloaded.
+ * This cache is only used on the server thread and needs to be re-created whenever a server is started.
+ */
+public class BlockRegionCache {
+    /**
+     * The largest number of blocks a region can have; a flood fill stops once it has found this many blocks.
+     */
+    public static final int MaximumRegionSize = 4096;
+
+    private final Predicate<BlockState> filter;
+    private final ConcurrentHashMap<ResourceKey<Level>, Long2ObjectOpenHashMap<Region>> regions;
+
+    /**
+     * Initializes a new instance of the {@link BlockRegionCache} class.
+     *
+     * @param filter Determines which block states are part of a region.
+     */
+    public BlockRegionCache(Predicate<BlockState> filter) {
+        this.filter = filter;
+        this.regions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the region which holds a position, finding it if it isn't cached yet.
+     * A region which is found here is controlled by the position it was found from.
+     *
+     * @param level The level of the position.
+     * @param pos   A position of a block which is part of a region.
+     * @return The region which holds the position.
+     */
+    public Region getRegion(Level level, BlockPos pos) {
+        Long2ObjectOpenHashMap<Region> levelRegions = this.regions.computeIfAbsent(level.dimension(), key -> new Long2ObjectOpenHashMap<>());
+        Region region = levelRegions.get(pos.asLong());
+
+        if (region == null) {
+            LongOpenHashSet positions = new LongOpenHashSet();
+            region = new Region(pos.asLong(), positions);
+
+            if (BlockRegionCache.fill(level, pos, this.filter, positions)) {
+                for (LongIterator iterator = positions.iterator(); iterator.hasNext(); ) {
+                    levelRegions.put(iterator.nextLong(), region);
+                }
+            }
+        }
+
+        return region;
+    }
+
+    /**
+     * Adds a placed block to the regions around it, joining them into a single region.
+     * When a neighboring block isn't part of a cached region the regions are dropped instead, since the joined region
+     * can't be known without a flood fill.
+     *
+     * @param level The level of the position.
+     * @param pos   The position of the placed block.
+     */
+    public void onBlockPlaced(Level level, BlockPos pos) {
+        Long2ObjectOpenHashMap<Region> levelRegions = this.regions.get(level.dimension());
+
+        if (levelRegions == null) {
+            return;
+        }
+
+        BlockRegionCache.drop(levelRegions, pos.asLong());
+
+        ArrayList<Region> neighborRegions = new ArrayList<>();
+        BlockPos.MutableBlockPos neighborPos = new BlockPos.MutableBlockPos();
+        int size = 1;
+
+        for (Direction direction : Direction.values()) {
+            neighborPos.setWithOffset(pos, direction);
+
+            if (!level.isLoaded(neighborPos)) {
+                // The placed block may join blocks which can't be seen right now.
+                this.invalidate(level, pos);
+                return;
+            }
+
+            if (!this.filter.test(level.getBlockState(neighborPos))) {
+                continue;
+            }
+
+            Region region = levelRegions.get(neighborPos.asLong());
+
+            if (region == null) {
+                this.invalidate(level, pos);
+                return;
+            }
+
+            if (!neighborRegions.contains(region)) {
+                neighborRegions.add(region);
+                size += region.getPositions().size();
+            }
+        }
+
+        // A block on its own is found the first time it's used.
+        if (neighborRegions.isEmpty()) {
+            return;
+        }
+
+        // Regions which reached the size limit weren't fully walked, so they can't be joined either.
+        if (size > BlockRegionCache.MaximumRegionSize) {
+            this.invalidate(level, pos);
+            return;
+        }
+
+        Region largest = neighborRegions.get(0);
+
+        for (Region region : neighborRegions) {
+            if (region.getPositions().size() > largest.getPositions().size()) {
+                largest = region;
+            }
+        }
+
+        for (Region region : neighborRegions) {
+            if (region != largest) {
+                for (LongIterator iterator = region.getPositions().iterator(); iterator.hasNext(); ) {
+                    long position = iterator.nextLong();
+                    largest.getPositions().add(position);
+                    levelRegions.put(position, largest);
+                }
+            }
+        }
+
+        largest.getPositions().add(pos.asLong());
+        levelRegions.put(pos.asLong(), largest);
+    }
+
+    /**
+     * Drops the regions which hold or touch a position so they are found again the next time they are used.
+     * This is called whenever a block of this cache's kind is removed.
+     *
+     * @param level The level of the position.
+     * @param pos   The position which changed.
+     */
+    public void invalidate(Level level, BlockPos pos) {
+        Long2ObjectOpenHashMap<Region> levelRegions = this.regions.get(level.dimension());
+
+        if (levelRegions == null) {
+            return;
+        }
+
+        BlockRegionCache.drop(levelRegions, pos.asLong());
+
+        for (Direction direction : Direction.values()) {
+            BlockRegionCache.drop(levelRegions, BlockPos.offset(pos.asLong(), direction));
+        }
+    }
+
+    /**
+     * Drops the regions which have a block in a chunk which is being unloaded.
+     *
+     * @param level    The level of the chunk.
+     * @param chunkPos The chunk which is being unloaded.
+     */
+    public void onChunkUnloaded(Level level, ChunkPos chunkPos) {
+        Long2ObjectOpenHashMap<Region> levelRegions = this.regions.get(level.dimension());
+
+        if (levelRegions == null || levelRegions.isEmpty()) {
+            return;
+        }
+
+        LongOpenHashSet chunkPositions = new LongOpenHashSet();
+
+        for (LongIterator iterator = levelRegions.keySet().iterator(); iterator.hasNext(); ) {
+            long position = iterator.nextLong();
+
+            if (SectionPos.blockToSectionCoord(BlockPos.getX(position)) == chunkPos.x
+                    && SectionPos.blockToSectionCoord(BlockPos.getZ(position)) == chunkPos.z) {
+                chunkPositions.add(position);
+            }
+        }
+
+        for (LongIterator iterator = chunkPositions.iterator(); iterator.hasNext(); ) {
+            BlockRegionCache.drop(levelRegions, iterator.nextLong());
+        }
+    }
+
+    /**
+     * Finds the positions connected to a starting position through the faces of blocks which match a filter.
+     * The walk uses a queue instead of recursion, skips chunks which aren't loaded and stops after
+     * {@link #MaximumRegionSize} positions.
+     *
+     * @param level  The level to search.
+     * @param start  The position to start from; it's always part of the result.
+     * @param filter Determines which block states are followed.
+     * @return The packed positions which were found.
+     */
+    public static LongOpenHashSet findConnected(Level level, BlockPos start, Predicate<BlockState> filter) {
+        LongOpenHashSet found = new LongOpenHashSet();
+        BlockRegionCache.fill(level, start, filter, found);
+
+        return found;
+    }
+
+    /**
+     * Fills the set with the positions connected to a starting position.
+     *
+     * @return False when the walk reached a chunk which isn't loaded or stopped at the size limit, otherwise true.
+     */
+    private static boolean fill(Level level, BlockPos start, Predicate<BlockState> filter, LongOpenHashSet found) {
+        LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        boolean complete = true;
+        BlockPos.MutableBlockPos neighborPos = new BlockPos.MutableBlockPos();
+
+        found.add(start.asLong());
+        queue.enqueue(start.asLong());
+
+        while (!queue.isEmpty() && found.size() < BlockRegionCache.MaximumRegionSize) {
+            long current = queue.dequeueLong();
+
+            for (Direction direction : Direction.values()) {
+                long neighbor = BlockPos.offset(current, direction);
+                neighborPos.set(neighbor);
+
+                if (found.contains(neighbor)) {
+                    continue;
+                }
+
+                if (!level.isLoaded(neighborPos)) {
+                    complete = false;
+                } else if (filter.test(level.getBlockState(neighborPos))) {
+                    found.add(neighbor);
+                    queue.enqueue(neighbor);
+                }
+            }
+        }
+
+        // Blocks which are still queued were found but their neighbors weren't walked.
+        return complete && queue.isEmpty();
+    }
+
+    /**
+     * Sets the same state for many blocks of a region at once.
+     * The states are written chunk by chunk without the block updates between the region's blocks, since those blocks only
+     * react to redstone. Blocks next to the region are still updated and clients receive the changes of a chunk section as
+     * a single packet.
+     *
+     * @param level     The level where the blocks reside.
+     * @param positions The positions of the blocks to update.
+     * @param state     The state to set.
+     * @param filter    Determines which neighboring blocks are part of the region and don't need an update.
+     */
+    public static void setStates(Level level, List<BlockPos> positions, BlockState state, Predicate<BlockState> filter) {
+        Long2ObjectOpenHashMap<ArrayList<BlockPos>> positionsByChunk = new Long2ObjectOpenHashMap<>();
+
+        for (BlockPos position : positions) {
+            positionsByChunk.computeIfAbsent(ChunkPos.asLong(position), key -> new ArrayList<>()).add(position);
+        }
+
+        ArrayList<BlockPos> changedPositions = new ArrayList<>(positions.size());
+        ArrayList<BlockState> previousStates = new ArrayList<>(positions.size());
+
+        for (ArrayList<BlockPos> chunkPositions : positionsByChunk.values()) {
+            LevelChunk chunk = level.getChunkAt(chunkPositions.get(0));
+
+            for (BlockPos position : chunkPositions) {
+                BlockState previousState = chunk.setBlockState(position, state, false);
+
+                if (previousState != null) {
+                    changedPositions.add(position);
+                    previousStates.add(previousState);
+                }
+            }
+        }
+
+        for (int i = 0; i < changedPositions.size(); i++) {
+            BlockPos position = changedPositions.get(i);
+            level.sendBlockUpdated(position, previousStates.get(i), state, Block.UPDATE_ALL);
+
+            for (Direction direction : Direction.values()) {
+                BlockPos neighborPos = position.relative(direction);
+
+                if (!filter.test(level.getBlockState(neighborPos))) {
+                    level.neighborChanged(neighborPos, state.getBlock(), position);
+                    level.neighborShapeChanged(direction.getOpposite(), state, neighborPos, position, Block.UPDATE_ALL, 512);
+                }
+            }
+        }
+    }
+
+    private static void drop(Long2ObjectOpenHashMap<Region> levelRegions, long pos) {
+        Region region = levelRegions.get(pos);
+
+        if (region != null) {
+            for (LongIterator iterator = region.getPositions().iterator(); iterator.hasNext(); ) {
+                levelRegions.remove(iterator.nextLong());
+            }
+        }
+    }
+
+    /**
+     * A set of connected blocks along with the position of the block which drives changes to the whole set.
+     */
+    public static class Region {
+        private final LongOpenHashSet positions;
+        private long controller;
+
+        public Region(long controller, LongOpenHashSet positions) {
+            this.controller = controller;
+            this.positions = positions;
+        }
+
+        public long getController() {
+            return this.controller;
+        }
+
+        public void setController(long value) {
+            this.controller = value;
+        }
+
+        public LongOpenHashSet getPositions() {
+            return this.positions;
+        }
+    }
+}
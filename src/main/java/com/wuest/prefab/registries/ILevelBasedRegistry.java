@@ -1,19 +1,22 @@
 package com.wuest.prefab.registries;
 
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.world.level.Level;
 
-import java.util.Vector;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
 
 /**
  * This abstract class is used to hold onto a Level (World) based registry.
- * The type parameter is used to hold onto a vector (thread-safe) of objects.
+ * Elements are packed into longs and kept in a concurrent set per level dimension, so membership checks are constant time
+ * and don't rely on hash codes being unique.
  * This registry is not expected to be persisted.
- * It needs to be re-created whenever a server is started.
+ * It needs to be re-created whenever a server is started; implementors fill it in from the chunks as they are loaded.
  * @param <T> The type of object to save in the registry.
  */
 public abstract class ILevelBasedRegistry<T> {
-    protected ConcurrentHashMap<Level, Vector<T>> internalRegistry;
+    protected ConcurrentHashMap<ResourceKey<Level>, Set<Long>> internalRegistry;
 
     /**
      * Creates a new instance of this abstract class.
@@ -28,68 +31,64 @@ public abstract class ILevelBasedRegistry<T> {
      * @param element The element to be registered.
      */
     public void register(Level level, T element) {
-        Vector<T> elements;
+        Set<Long> elements = this.internalRegistry.computeIfAbsent(level.dimension(), key -> ConcurrentHashMap.newKeySet());
 
-        if(!this.internalRegistry.containsKey(level)) {
-            elements = new Vector<>();
-            this.internalRegistry.put(level, elements);
-        } else {
-            elements = this.internalRegistry.get(level);
-        }
-
-        // Make sure to check for null in-case the key was removed between the contains check and the get.
-        if (elements != null) {
-            boolean foundExistingElement = false;
-
-            for (T existingElement : elements) {
-                if (existingElement.hashCode() == element.hashCode()) {
-                    foundExistingElement = true;
-                    break;
-                }
-            }
-
-            // Make sure this element does not already exist.
-            if (!foundExistingElement) {
-                elements.add(element);
-                this.onElementRegistered(level, element);
-            }
+        // The set only reports the add for the first thread, so an element is never registered twice.
+        if (elements.add(this.pack(element))) {
+            this.onElementRegistered(level, element);
         }
     }
 
     /**
      * Removes an element from a level registration.
+     * The set of a level is kept once it's created; there are only a handful of levels and removing an empty set could
+     * drop an element which another thread is registering at the same time.
      * @param level The level which to remove the element from.
-     *              If there are no more elements left, this level is also removed.
      * @param originalElement The original element to remove from the collection if possible.
      */
     public void remove(Level level, T originalElement) {
-        if (this.internalRegistry.containsKey(level)) {
-            Vector<T> elements = this.internalRegistry.get(level);
+        Set<Long> elements = this.internalRegistry.get(level.dimension());
 
-            // Make sure to check for null in-case the key was removed between the contains check and the get.
-            if (elements != null) {
-                // Try to find this element in the collection.
-                for (int i = 0; i < elements.size(); i++) {
-                    T element = elements.get(i);
+        // Only the thread which actually removed the element lets the implementor know.
+        if (elements != null && elements.remove(this.pack(originalElement))) {
+            this.onElementRemoved(level, originalElement);
+        }
+    }
 
-                    if (element.hashCode() == originalElement.hashCode()) {
-                        // remove the element from the collection to ensure that another player/thread doesn't try to remove the same item.
-                        elements.remove(element);
+    /**
+     * Determines if an element is registered for a level.
+     * @param level The level to check.
+     * @param element The element to look for.
+     * @return True if the element is registered, otherwise false.
+     */
+    public boolean contains(Level level, T element) {
+        Set<Long> elements = this.internalRegistry.get(level.dimension());
 
-                        // Let the implementor know that this element was removed to do any custom processing.
-                        this.onElementRemoved(level, element);
-                        break;
-                    }
-                }
+        return elements != null && elements.contains(this.pack(element));
+    }
+
+    /**
+     * Drops the elements of a level which match a filter without letting the implementor know.
+     * This is used when the elements are unloaded rather than removed from the world.
+     * @param level The level to drop the elements from.
+     * @param filter The filter which is called with the packed value of each element.
+     */
+    protected void forget(Level level, LongPredicate filter) {
+        Set<Long> elements = this.internalRegistry.get(level.dimension());
 
-                if (elements.size() == 0) {
-                    // No more elements, remove the level from the array.
-                    this.internalRegistry.remove(level);
-                }
-            }
+        if (elements != null) {
+            elements.removeIf(filter::test);
         }
     }
 
+    /**
+     * Packs an element into the long which is stored in the registry.
+     * Two elements must only pack to the same value when they are equal.
+     * @param element The element to pack.
+     * @return The packed value of the element.
+     */
+    protected abstract long pack(T element);
+
     /**
      * Called when the element is removed from the registry.
      * This allows implementors an opportunity to do something custom in this scenario.
@@ -0,0 +1,192 @@
+package com.wuest.prefab.registries;
+
+import com.wuest.prefab.ModRegistry;
+import com.wuest.prefab.blocks.entities.LightSwitchBlockEntity;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+import java.util.function.Consumer;
+
+/**
+ * This class is a spatial index of the dark lamps and light switches in a single level.
+ * Positions are bucketed by chunk section so a search only visits the sections which overlap the search area.
+ * A chunk is indexed the first time a search touches it and afterwards kept up to date as lamps and switches are placed
+ * and removed; the entries of a chunk are dropped when it's loaded or unloaded so they are rebuilt on the next search.
+ */
+public class LightIndex {
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> lamps = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> switches = new Long2ObjectOpenHashMap<>();
+    private final LongOpenHashSet indexedChunks = new LongOpenHashSet();
+
+    public void addLamp(BlockPos pos) {
+        LightIndex.add(this.lamps, this.indexedChunks, pos);
+    }
+
+    public void removeLamp(BlockPos pos) {
+        LightIndex.remove(this.lamps, pos);
+    }
+
+    public void addSwitch(BlockPos pos) {
+        LightIndex.add(this.switches, this.indexedChunks, pos);
+    }
+
+    public void removeSwitch(BlockPos pos) {
+        LightIndex.remove(this.switches, pos);
+    }
+
+    /**
+     * Drops the entries of a chunk so it's indexed again by the next search which touches it.
+     *
+     * @param chunkPos The chunk which was loaded or unloaded.
+     */
+    public void invalidateChunk(ChunkPos chunkPos) {
+        if (this.indexedChunks.remove(chunkPos.toLong())) {
+            LightIndex.removeChunk(this.lamps, chunkPos);
+            LightIndex.removeChunk(this.switches, chunkPos);
+        }
+    }
+
+    /**
+     * Calls the consumer for every indexed lamp within a cube around a position.
+     *
+     * @param level    The level to search.
+     * @param center   The center of the cube.
+     * @param radius   The number of blocks from the center to each side of the cube.
+     * @param consumer The consumer to call for each lamp position.
+     */
+    public void forEachLamp(Level level, BlockPos center, int radius, Consumer<BlockPos> consumer) {
+        this.ensureIndexed(level, center, radius);
+        LightIndex.forEachInRange(this.lamps, center, radius, consumer);
+    }
+
+    /**
+     * Finds an indexed light switch within a cube around a position.
+     *
+     * @param level  The level to search.
+     * @param center The center of the cube.
+     * @param radius The number of blocks from the center to each side of the cube.
+     * @return The position of the first switch found or null if there is no switch in range.
+     */
+    public BlockPos findSwitch(Level level, BlockPos center, int radius) {
+        this.ensureIndexed(level, center, radius);
+        BlockPos[] found = new BlockPos[1];
+
+        LightIndex.forEachInRange(this.switches, center, radius, pos -> {
+            if (found[0] == null) {
+                found[0] = pos;
+            }
+        });
+
+        return found[0];
+    }
+
+    private void ensureIndexed(Level level, BlockPos center, int radius) {
+        int minChunkX = SectionPos.blockToSectionCoord(center.getX() - radius);
+        int maxChunkX = SectionPos.blockToSectionCoord(center.getX() + radius);
+        int minChunkZ = SectionPos.blockToSectionCoord(center.getZ() - radius);
+        int maxChunkZ = SectionPos.blockToSectionCoord(center.getZ() + radius);
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                // Chunks which aren't loaded are indexed once a search touches them while they are loaded.
+                if (!this.indexedChunks.contains(ChunkPos.asLong(chunkX, chunkZ)) && level.hasChunk(chunkX, chunkZ)) {
+                    this.indexChunk(level.getChunk(chunkX, chunkZ));
+                }
+            }
+        }
+    }
+
+    private void indexChunk(LevelChunk chunk) {
+        ChunkPos chunkPos = chunk.getPos();
+        this.indexedChunks.add(chunkPos.toLong());
+
+        LevelChunkSection[] sections = chunk.getSections();
+
+        for (int i = 0; i < sections.length; i++) {
+            LevelChunkSection section = sections[i];
+
+            // The palette check skips every section which can't hold a lamp without looking at its blocks.
+            if (section.hasOnlyAir() || !section.maybeHas(state -> state.getBlock() == ModRegistry.DarkLamp)) {
+                continue;
+            }
+
+            int minY = SectionPos.sectionToBlockCoord(chunk.getSectionYFromSectionIndex(i));
+
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        if (section.getBlockState(x, y, z).getBlock() == ModRegistry.DarkLamp) {
+                            this.addLamp(new BlockPos(chunkPos.getMinBlockX() + x, minY + y, chunkPos.getMinBlockZ() + z));
+                        }
+                    }
+                }
+            }
+        }
+
+        for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+            if (blockEntity instanceof LightSwitchBlockEntity) {
+                this.addSwitch(blockEntity.getBlockPos());
+            }
+        }
+    }
+
+    private static void add(Long2ObjectOpenHashMap<LongOpenHashSet> buckets, LongOpenHashSet indexedChunks, BlockPos pos) {
+        // Entries for chunks which aren't indexed yet would be duplicated by the chunk scan; that scan picks them up instead.
+        if (indexedChunks.contains(ChunkPos.asLong(pos))) {
+            buckets.computeIfAbsent(SectionPos.asLong(pos), key -> new LongOpenHashSet()).add(pos.asLong());
+        }
+    }
+
+    private static void remove(Long2ObjectOpenHashMap<LongOpenHashSet> buckets, BlockPos pos) {
+        long sectionKey = SectionPos.asLong(pos);
+        LongOpenHashSet bucket = buckets.get(sectionKey);
+
+        if (bucket != null && bucket.remove(pos.asLong()) && bucket.isEmpty()) {
+            buckets.remove(sectionKey);
+        }
+    }
+
+    private static void removeChunk(Long2ObjectOpenHashMap<LongOpenHashSet> buckets, ChunkPos chunkPos) {
+        buckets.keySet().removeIf(sectionKey -> SectionPos.x(sectionKey) == chunkPos.x && SectionPos.z(sectionKey) == chunkPos.z);
+    }
+
+    private static void forEachInRange(Long2ObjectOpenHashMap<LongOpenHashSet> buckets, BlockPos center, int radius, Consumer<BlockPos> consumer) {
+        int minX = center.getX() - radius;
+        int minY = center.getY() - radius;
+        int minZ = center.getZ() - radius;
+        int maxX = center.getX() + radius;
+        int maxY = center.getY() + radius;
+        int maxZ = center.getZ() + radius;
+
+        for (int sectionX = SectionPos.blockToSectionCoord(minX); sectionX <= SectionPos.blockToSectionCoord(maxX); sectionX++) {
+            for (int sectionY = SectionPos.blockToSectionCoord(minY); sectionY <= SectionPos.blockToSectionCoord(maxY); sectionY++) {
+                for (int sectionZ = SectionPos.blockToSectionCoord(minZ); sectionZ <= SectionPos.blockToSectionCoord(maxZ); sectionZ++) {
+                    LongOpenHashSet bucket = buckets.get(SectionPos.asLong(sectionX, sectionY, sectionZ));
+
+                    if (bucket == null) {
+                        continue;
+                    }
+
+                    for (LongIterator iterator = bucket.iterator(); iterator.hasNext(); ) {
+                        long packedPos = iterator.nextLong();
+                        int x = BlockPos.getX(packedPos);
+                        int y = BlockPos.getY(packedPos);
+                        int z = BlockPos.getZ(packedPos);
+
+                        if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+                            consumer.accept(new BlockPos(x, y, z));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,57 +1,99 @@
 package com.wuest.prefab.registries;
 
 import com.wuest.prefab.ModRegistry;
-import com.wuest.prefab.Tuple;
 import com.wuest.prefab.blocks.BlockDarkLamp;
 import com.wuest.prefab.blocks.BlockLightSwitch;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
 
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class LightSwitchRegistry extends ILevelBasedRegistry<BlockPos> {
     private static final int SearchBlockRadius = 24;
 
+    private final ConcurrentHashMap<ResourceKey<Level>, LightIndex> lightIndexes;
+
     public LightSwitchRegistry() {
         super();
+
+        this.lightIndexes = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    protected long pack(BlockPos element) {
+        return element.asLong();
     }
 
     @Override
     protected void onElementRemoved(Level level, BlockPos element) {
+        this.getLightIndex(level).removeSwitch(element);
         this.setNearbyLights(element, level, false);
     }
 
     @Override
     protected void onElementRegistered(Level level, BlockPos element) {
-        // Do nothing here as it's not necessary.
+        this.getLightIndex(level).addSwitch(element);
+    }
+
+    public void onLampPlaced(Level level, BlockPos blockPos) {
+        this.getLightIndex(level).addLamp(blockPos);
+    }
+
+    public void onLampRemoved(Level level, BlockPos blockPos) {
+        this.getLightIndex(level).removeLamp(blockPos);
+    }
+
+    /**
+     * Drops the switches of a chunk which was unloaded.
+     * A switch registers itself again when its block entity is loaded with the chunk, so only the loaded switches are kept.
+     * @param level The level of the chunk.
+     * @param chunkPos The position of the chunk.
+     */
+    public void onChunkUnloaded(Level level, ChunkPos chunkPos) {
+        this.onChunkChanged(level, chunkPos);
+        this.forget(level, packedPos -> SectionPos.blockToSectionCoord(BlockPos.getX(packedPos)) == chunkPos.x
+                && SectionPos.blockToSectionCoord(BlockPos.getZ(packedPos)) == chunkPos.z);
+    }
+
+    /**
+     * Drops the indexed lamps and switches of a chunk which was loaded or unloaded.
+     * @param level The level of the chunk.
+     * @param chunkPos The position of the chunk.
+     */
+    public void onChunkChanged(Level level, ChunkPos chunkPos) {
+        LightIndex lightIndex = this.lightIndexes.get(level.dimension());
+
+        if (lightIndex != null) {
+            lightIndex.invalidateChunk(chunkPos);
+        }
     }
 
     public void flipSwitch(Level level, BlockPos incomingBlockPos, boolean turnOn) {
         // Don't do anything client-side.
-        if (!level.isClientSide && this.internalRegistry.containsKey(level)) {
-            Vector<BlockPos> blockPositions = this.internalRegistry.get(level);
-
-            // Make sure to check for null in-case the key was removed between the contains check and the get.
-            if (blockPositions != null) {
-                for (BlockPos blockPos : blockPositions) {
-                    if (blockPos.hashCode() == incomingBlockPos.hashCode()) {
-                        this.setNearbyLights(blockPos, level, turnOn);
-                        break;
-                    }
-                }
-            }
+        if (!level.isClientSide && this.contains(level, incomingBlockPos)) {
+            this.setNearbyLights(incomingBlockPos.immutable(), level, turnOn);
         }
     }
 
     public boolean checkForNearbyOnSwitch(Level level, BlockPos blockPos) {
-        Tuple<BlockPos, BlockPos> searchPositions = this.getSearchStartAndEnd(blockPos);
+        BlockPos switchPos = this.getLightIndex(level).findSwitch(level, blockPos, LightSwitchRegistry.SearchBlockRadius);
 
-        for (BlockPos worldPos: BlockPos.betweenClosed(searchPositions.getFirst(), searchPositions.getSecond())) {
-            BlockState blockState = level.getBlockState(worldPos);
+        if (switchPos != null) {
+            BlockState blockState = level.getBlockState(switchPos);
 
             if (blockState.getBlock() == ModRegistry.LightSwitch) {
-                // Always use the first one found.
                 return blockState.getValue(BlockLightSwitch.POWERED);
             }
         }
@@ -60,29 +102,74 @@ public class LightSwitchRegistry extends ILevelBasedRegistry<BlockPos> {
     }
 
     private void setNearbyLights(BlockPos blockPos, Level level, boolean turnOn) {
-        Tuple<BlockPos, BlockPos> searchPositions = this.getSearchStartAndEnd(blockPos);
+        if (!(level instanceof ServerLevel serverLevel)) {
+            return;
+        }
 
-        for (BlockPos worldPos: BlockPos.betweenClosed(searchPositions.getFirst(), searchPositions.getSecond())) {
-            BlockState blockState = level.getBlockState(worldPos);
+        // Only the lamps in the sections around the switch are visited instead of every block in range.
+        // The lamps are grouped by section so each section is written in one go.
+        Long2ObjectOpenHashMap<ArrayList<BlockPos>> lampsBySection = new Long2ObjectOpenHashMap<>();
 
-            if (blockState.getBlock() == ModRegistry.DarkLamp) {
-                blockState = blockState.setValue(BlockDarkLamp.LIT, turnOn);
-                level.setBlock(worldPos, blockState, 3);
-            }
+        this.getLightIndex(level).forEachLamp(level, blockPos, LightSwitchRegistry.SearchBlockRadius,
+                lampPos -> lampsBySection.computeIfAbsent(SectionPos.asLong(lampPos), key -> new ArrayList<>()).add(lampPos));
+
+        for (Long2ObjectMap.Entry<ArrayList<BlockPos>> entry : lampsBySection.long2ObjectEntrySet()) {
+            this.setSectionLights(serverLevel, entry.getLongKey(), entry.getValue(), turnOn);
         }
     }
 
-    private Tuple<BlockPos, BlockPos> getSearchStartAndEnd(BlockPos startingPos) {
-        BlockPos startPos = startingPos
-                .below(LightSwitchRegistry.SearchBlockRadius)
-                .south(LightSwitchRegistry.SearchBlockRadius)
-                .west(LightSwitchRegistry.SearchBlockRadius);
+    /**
+     * Sets the lit state of the lamps in a single chunk section.
+     * The states are written straight into the section. Every changed position is then queued with the light engine and the
+     * chunk's change tracker, which relights them in a single pass and sends them to clients as one section update packet.
+     * Blocks next to a changed lamp which aren't lamps themselves still get neighbor and shape updates so observers and
+     * similar blocks see the change.
+     */
+    private void setSectionLights(ServerLevel level, long sectionKey, ArrayList<BlockPos> lampPositions, boolean turnOn) {
+        LevelChunk chunk = level.getChunk(SectionPos.x(sectionKey), SectionPos.z(sectionKey));
+        LevelChunkSection section = chunk.getSection(chunk.getSectionIndexFromSectionY(SectionPos.y(sectionKey)));
+        ArrayList<BlockPos> changedPositions = new ArrayList<>();
+        ArrayList<BlockState> changedStates = new ArrayList<>();
+
+        for (BlockPos lampPos : lampPositions) {
+            int x = SectionPos.sectionRelative(lampPos.getX());
+            int y = SectionPos.sectionRelative(lampPos.getY());
+            int z = SectionPos.sectionRelative(lampPos.getZ());
+            BlockState blockState = section.getBlockState(x, y, z);
+
+            if (blockState.getBlock() == ModRegistry.DarkLamp && blockState.getValue(BlockDarkLamp.LIT) != turnOn) {
+                section.setBlockState(x, y, z, blockState.setValue(BlockDarkLamp.LIT, turnOn), false);
+                changedPositions.add(lampPos);
+                changedStates.add(blockState.setValue(BlockDarkLamp.LIT, turnOn));
+            }
+        }
+
+        if (changedPositions.isEmpty()) {
+            return;
+        }
+
+        chunk.setUnsaved(true);
+
+        for (int i = 0; i < changedPositions.size(); i++) {
+            BlockPos changedPos = changedPositions.get(i);
+            BlockState changedState = changedStates.get(i);
+
+            level.getChunkSource().getLightEngine().checkBlock(changedPos);
+            level.getChunkSource().blockChanged(changedPos);
+
+            for (Direction direction : Direction.values()) {
+                BlockPos neighborPos = changedPos.relative(direction);
 
-        BlockPos endPos = startingPos
-                .above(LightSwitchRegistry.SearchBlockRadius)
-                .north(LightSwitchRegistry.SearchBlockRadius)
-                .east(LightSwitchRegistry.SearchBlockRadius);
+                // The other lamps are set by this same pass; they don't react to each other.
+                if (level.getBlockState(neighborPos).getBlock() != ModRegistry.DarkLamp) {
+                    level.neighborChanged(neighborPos, changedState.getBlock(), changedPos);
+                    level.neighborShapeChanged(direction.getOpposite(), changedState, neighborPos, changedPos, Block.UPDATE_ALL, 512);
+                }
+            }
+        }
+    }
 
-        return new Tuple<>(startPos, endPos);
+    private LightIndex getLightIndex(Level level) {
+        return this.lightIndexes.computeIfAbsent(level.dimension(), key -> new LightIndex());
     }
 }
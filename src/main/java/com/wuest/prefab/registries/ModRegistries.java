@@ -1,13 +1,28 @@
 package com.wuest.prefab.registries;
 
+import com.wuest.prefab.blocks.BlockBoundary;
+import com.wuest.prefab.blocks.BlockPhasic;
+
 public class ModRegistries {
     private final LightSwitchRegistry lightSwitchRegistry;
+    private final BlockRegionCache phasicRegionCache;
+    private final BlockRegionCache boundaryRegionCache;
 
     public ModRegistries() {
         this.lightSwitchRegistry = new LightSwitchRegistry();
+        this.phasicRegionCache = new BlockRegionCache(BlockPhasic::isPhasic);
+        this.boundaryRegionCache = new BlockRegionCache(BlockBoundary::isBoundary);
     }
 
     public LightSwitchRegistry getLightSwitchRegistry() {
         return lightSwitchRegistry;
     }
+
+    public BlockRegionCache getPhasicRegionCache() {
+        return phasicRegionCache;
+    }
+
+    public BlockRegionCache getBoundaryRegionCache() {
+        return boundaryRegionCache;
+    }
 }
@@ -10,14 +10,12 @@ import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.TagParser;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.tags.FluidTags;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.*;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.AttachFace;
 import net.minecraft.world.level.block.state.properties.Property;
 import net.minecraft.world.level.block.state.properties.WallSide;
-import net.minecraft.world.level.material.FluidState;
 import net.minecraft.world.phys.Vec3;
 
 import java.util.*;
@@ -125,25 +123,6 @@ public class BuildBlock {
         }
     }
 
-    private static boolean neighborHaveWater(BlockPos originalPos, Level world) {
-        boolean returnValue = false;
-
-        for (Direction direction : Direction.values()) {
-            if (direction == Direction.DOWN) {
-                continue;
-            }
-
-            FluidState fluidState = world.getFluidState(originalPos.relative(direction));
-
-            if (fluidState.is(FluidTags.WATER) && fluidState.getAmount() == 8) {
-                returnValue = true;
-                break;
-            }
-        }
-
-        return returnValue;
-    }
-
     public static Direction getHorizontalFacing(Direction currentFacing, Direction configurationFacing, Direction structureDirection) {
         if (currentFacing != null && currentFacing != Direction.UP && currentFacing != Direction.DOWN) {
             if (configurationFacing.getOpposite() == structureDirection.getClockWise()) {
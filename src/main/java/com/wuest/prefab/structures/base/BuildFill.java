@@ -0,0 +1,128 @@
+package com.wuest.prefab.structures.base;
+
+import com.google.gson.annotations.Expose;
+
+import java.util.ArrayList;
+
+/**
+ * Defines a cuboid of blocks which all have the same block state.
+ * The block holds the state and the first corner of the cuboid; the end position is the opposite corner.
+ */
+public class BuildFill {
+    @Expose
+    private BuildBlock block;
+
+    @Expose
+    private PositionOffset endPosition;
+
+    public BuildFill() {
+        this.Initialize();
+    }
+
+    public BuildBlock getBlock() {
+        return this.block;
+    }
+
+    public void setBlock(BuildBlock value) {
+        this.block = value;
+    }
+
+    public PositionOffset getEndPosition() {
+        return this.endPosition;
+    }
+
+    public void setEndPosition(PositionOffset value) {
+        this.endPosition = value;
+    }
+
+    /**
+     * Gets the number of blocks in this fill.
+     *
+     * @return The volume of the cuboid.
+     */
+    public int getVolume() {
+        PositionOffset start = this.block.getStartingPosition();
+
+        return (Math.abs(BuildFill.getX(this.endPosition) - BuildFill.getX(start)) + 1)
+                * (Math.abs(this.endPosition.getHeightOffset() - start.getHeightOffset()) + 1)
+                * (Math.abs(BuildFill.getZ(this.endPosition) - BuildFill.getZ(start)) + 1);
+    }
+
+    /**
+     * Creates a separate build block for every position in this fill.
+     * This is used when the blocks of a fill need to be processed one at a time.
+     *
+     * @return A new list of build blocks.
+     */
+    public ArrayList<BuildBlock> expand() {
+        ArrayList<BuildBlock> blocks = new ArrayList<>();
+        PositionOffset start = this.block.getStartingPosition();
+
+        int minX = Math.min(BuildFill.getX(start), BuildFill.getX(this.endPosition));
+        int maxX = Math.max(BuildFill.getX(start), BuildFill.getX(this.endPosition));
+        int minY = Math.min(start.getHeightOffset(), this.endPosition.getHeightOffset());
+        int maxY = Math.max(start.getHeightOffset(), this.endPosition.getHeightOffset());
+        int minZ = Math.min(BuildFill.getZ(start), BuildFill.getZ(this.endPosition));
+        int maxZ = Math.max(BuildFill.getZ(start), BuildFill.getZ(this.endPosition));
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    BuildBlock buildBlock = new BuildBlock();
+                    buildBlock.setBlockDomain(this.block.getBlockDomain());
+                    buildBlock.setBlockName(this.block.getBlockName());
+                    buildBlock.setStartingPosition(BuildFill.createOffset(x, y, z));
+
+                    for (BuildProperty property : this.block.getProperties()) {
+                        BuildProperty copy = new BuildProperty();
+                        copy.setName(property.getName());
+                        copy.setValue(property.getValue());
+                        buildBlock.getProperties().add(copy);
+                    }
+
+                    blocks.add(buildBlock);
+                }
+            }
+        }
+
+        return blocks;
+    }
+
+    public void Initialize() {
+        this.block = new BuildBlock();
+        this.endPosition = new PositionOffset();
+    }
+
+    /**
+     * Gets the east/west component of an offset; east is positive.
+     */
+    static int getX(PositionOffset offset) {
+        return offset.getEastOffset() - offset.getWestOffset();
+    }
+
+    /**
+     * Gets the north/south component of an offset; south is positive.
+     */
+    static int getZ(PositionOffset offset) {
+        return offset.getSouthOffset() - offset.getNorthOffset();
+    }
+
+    static PositionOffset createOffset(int x, int y, int z) {
+        PositionOffset offset = new PositionOffset();
+
+        if (x > 0) {
+            offset.setEastOffset(x);
+        } else {
+            offset.setWestOffset(-x);
+        }
+
+        if (z > 0) {
+            offset.setSouthOffset(z);
+        } else {
+            offset.setNorthOffset(-z);
+        }
+
+        offset.setHeightOffset(y);
+        return offset;
+    }
+}
@@ -34,49 +34,6 @@ import java.util.ArrayList;
  */
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class BuildingMethods {
-	/**
-	 * This method consolidate drops for the current block into an existing ArrayList
-	 *
-	 * @param world          The world which the block resides.
-	 * @param pos            The block position.
-	 * @param state          The current block state.
-	 * @param originalStacks The original list of stacks.
-	 * @param itemsToNotAdd  The items to not add to the list.
-	 * @return An updated list of item stacks.
-	 */
-	public static ArrayList<ItemStack> ConsolidateDrops(ServerLevel world, BlockPos pos, BlockState state, ArrayList<ItemStack> originalStacks,
-														ArrayList<Item> itemsToNotAdd) {
-		for (ItemStack stack : Block.getDrops(state, world, pos, null)) {
-			if (itemsToNotAdd != null) {
-				if (itemsToNotAdd.contains(stack.getItem())) {
-					continue;
-				}
-			}
-
-			// Check to see if this stack's item is equal to an existing item
-			// stack. If it is just add the count.
-			boolean foundStack = false;
-
-			for (ItemStack existingStack : originalStacks) {
-				if (ItemStack.isSameItem(existingStack, stack)) {
-					// Make sure that this combined stack is at or smaller than
-					// the max.
-					if (existingStack.getCount() + stack.getCount() <= stack.getMaxStackSize()) {
-						existingStack.setCount(existingStack.getCount() + stack.getCount());
-						foundStack = true;
-						break;
-					}
-				}
-			}
-
-			if (!foundStack) {
-				originalStacks.add(stack);
-			}
-		}
-
-		return originalStacks;
-	}
-
 	/**
 	 * Creates a wall of blocks.
 	 *
@@ -493,10 +450,6 @@ public class BuildingMethods {
 	 * @param onlyGatherOres - Determines if vanilla non-ore blocks will be gathered.
 	 */
 	public static void PlaceMineShaft(ServerLevel world, BlockPos pos, Direction facing, boolean onlyGatherOres) {
-		// Keep track of all of the items to add to the chest at the end of the
-		// shaft.
-		ArrayList<ItemStack> stacks = new ArrayList<ItemStack>();
-
 		ArrayList<Item> blocksToNotAdd = new ArrayList<Item>();
 
 		if (onlyGatherOres) {
@@ -514,21 +467,21 @@ public class BuildingMethods {
 			blocksToNotAdd.add(Item.byBlock(Blocks.MOSSY_STONE_BRICKS));
 		}
 
+		// Keep track of all of the items to add to the chest at the end of the
+		// shaft. The drops are merged by item as they are collected.
+		DropAggregator drops = new DropAggregator(blocksToNotAdd);
+
 		int minimumHeightForMineshaft = world.getMinBuildHeight() + 21;
 
-		Tuple<ArrayList<ItemStack>, ArrayList<BlockPos>> ladderShaftResults = BuildingMethods.CreateLadderShaft(world, pos, stacks, facing, blocksToNotAdd, minimumHeightForMineshaft);
-		stacks = ladderShaftResults.getFirst();
-		ArrayList<BlockPos> torchPositions = ladderShaftResults.getSecond();
+		ArrayList<BlockPos> torchPositions = BuildingMethods.CreateLadderShaft(world, pos, drops, facing, minimumHeightForMineshaft);
 
 		// Get 20 blocks above the void.
 		pos = pos.below(pos.getY() - minimumHeightForMineshaft);
 
-		ArrayList<ItemStack> tempStacks = new ArrayList<ItemStack>();
-
 		BlockPos ceilingLevel = pos.above(4);
 
-		tempStacks = BuildingMethods.SetFloor(world, ceilingLevel.relative(facing, 2).relative(facing.getClockWise(), 2).relative(facing.getOpposite()), Blocks.STONE, 4, 4, tempStacks,
-				facing.getOpposite(), blocksToNotAdd);
+		drops.addAll(BuildingMethods.SetFloor(world, ceilingLevel.relative(facing, 2).relative(facing.getClockWise(), 2).relative(facing.getOpposite()), Blocks.STONE, 4, 4, new ArrayList<>(),
+				facing.getOpposite(), blocksToNotAdd));
 
 		// After setting the floor, make sure to replace the ladder.
 		BuildingMethods.ReplaceBlock(world, ceilingLevel, Blocks.LADDER.defaultBlockState().setValue(LadderBlock.FACING, facing));
@@ -539,23 +492,16 @@ public class BuildingMethods {
 		for (BlockPos torchPos : torchPositions) {
 			BlockState surroundingState = world.getBlockState(torchPos);
 			Block surroundingBlock = surroundingState.getBlock();
-			tempStacks = BuildingMethods.ConsolidateDrops(world, torchPos, surroundingState, tempStacks, blocksToNotAdd);
+			drops.addDrops(world, torchPos, surroundingState);
 			BuildingMethods.ReplaceBlock(world, torchPos, torchState);
 		}
 
 		// The entire ladder has been created. Create a platform at this level
 		// and place a chest next to the ladder.
-		tempStacks.addAll(BuildingMethods.SetFloor(world, pos.relative(facing).relative(facing.getClockWise()), Blocks.STONE, 3, 4, tempStacks, facing.getOpposite(), blocksToNotAdd));
+		drops.addAll(BuildingMethods.SetFloor(world, pos.relative(facing).relative(facing.getClockWise()), Blocks.STONE, 3, 4, new ArrayList<>(), facing.getOpposite(), blocksToNotAdd));
 
 		// Remove the ladder stack since they shouldn't be getting that.
-		for (int i = 0; i < tempStacks.size(); i++) {
-			ItemStack stack = tempStacks.get(i);
-
-			if (stack.getItem() == Item.byBlock(Blocks.LADDER)) {
-				tempStacks.remove(i);
-				i--;
-			}
-		}
+		drops.remove(Item.byBlock(Blocks.LADDER));
 
 		// Now that the floor has been set, go up 1 block to star creating the
 		// walls.
@@ -566,44 +512,21 @@ public class BuildingMethods {
 		// Make a wall of air then a wall of stone.
 
 		// South wall.
-		tempStacks
-				.addAll(BuildingMethods.CreateWall(world, 3, 3, facing.getClockWise(), pos.relative(facing.getOpposite(), 2).relative(facing.getCounterClockWise()), Blocks.AIR, blocksToNotAdd));
+		drops.addAll(BuildingMethods.CreateWall(world, 3, 3, facing.getClockWise(), pos.relative(facing.getOpposite(), 2).relative(facing.getCounterClockWise()), Blocks.AIR, blocksToNotAdd));
 
-		tempStacks.addAll(
-				BuildingMethods.CreateWall(world, 3, 3, facing.getClockWise(), pos.relative(facing.getOpposite(), 3).relative(facing.getCounterClockWise()), Blocks.STONE, blocksToNotAdd));
+		drops.addAll(BuildingMethods.CreateWall(world, 3, 3, facing.getClockWise(), pos.relative(facing.getOpposite(), 3).relative(facing.getCounterClockWise()), Blocks.STONE, blocksToNotAdd));
 
 		// East wall.
-		tempStacks.addAll(BuildingMethods.CreateWall(world, 3, 4, facing, pos.relative(facing.getOpposite(), 2).relative(facing.getClockWise()), Blocks.AIR, blocksToNotAdd));
-		tempStacks.addAll(BuildingMethods.CreateWall(world, 3, 4, facing, pos.relative(facing.getOpposite(), 2).relative(facing.getClockWise(), 2), Blocks.STONE, blocksToNotAdd));
+		drops.addAll(BuildingMethods.CreateWall(world, 3, 4, facing, pos.relative(facing.getOpposite(), 2).relative(facing.getClockWise()), Blocks.AIR, blocksToNotAdd));
+		drops.addAll(BuildingMethods.CreateWall(world, 3, 4, facing, pos.relative(facing.getOpposite(), 2).relative(facing.getClockWise(), 2), Blocks.STONE, blocksToNotAdd));
 
 		// North wall.
-		tempStacks.addAll(BuildingMethods.CreateWall(world, 3, 3, facing.getCounterClockWise(), pos.relative(facing).relative(facing.getClockWise()), Blocks.AIR, blocksToNotAdd));
-		tempStacks.addAll(BuildingMethods.CreateWall(world, 3, 3, facing.getCounterClockWise(), pos.relative(facing, 2).relative(facing.getClockWise()), Blocks.STONE, blocksToNotAdd));
+		drops.addAll(BuildingMethods.CreateWall(world, 3, 3, facing.getCounterClockWise(), pos.relative(facing).relative(facing.getClockWise()), Blocks.AIR, blocksToNotAdd));
+		drops.addAll(BuildingMethods.CreateWall(world, 3, 3, facing.getCounterClockWise(), pos.relative(facing, 2).relative(facing.getClockWise()), Blocks.STONE, blocksToNotAdd));
 
 		// West wall.
-		tempStacks.addAll(BuildingMethods.CreateWall(world, 3, 4, facing.getOpposite(), pos.relative(facing).relative(facing.getCounterClockWise()), Blocks.AIR, blocksToNotAdd));
-		tempStacks.addAll(BuildingMethods.CreateWall(world, 3, 4, facing.getOpposite(), pos.relative(facing, 1).relative(facing.getCounterClockWise(), 2), Blocks.STONE, blocksToNotAdd));
-
-		// Consolidate the stacks.
-		for (ItemStack tempStack : tempStacks) {
-			boolean foundStack = false;
-
-			for (ItemStack existingStack : stacks) {
-				if (ItemStack.isSameItem(existingStack, tempStack)) {
-					// Make sure that this combined stack is at or smaller than
-					// the max.
-					if (existingStack.getCount() + tempStack.getCount() <= tempStack.getMaxStackSize()) {
-						existingStack.setCount(existingStack.getCount() + tempStack.getCount());
-						foundStack = true;
-						break;
-					}
-				}
-			}
-
-			if (!foundStack) {
-				stacks.add(tempStack);
-			}
-		}
+		drops.addAll(BuildingMethods.CreateWall(world, 3, 4, facing.getOpposite(), pos.relative(facing).relative(facing.getCounterClockWise()), Blocks.AIR, blocksToNotAdd));
+		drops.addAll(BuildingMethods.CreateWall(world, 3, 4, facing.getOpposite(), pos.relative(facing, 1).relative(facing.getCounterClockWise(), 2), Blocks.STONE, blocksToNotAdd));
 
 		// Place a torch to the left of the ladder.
 		BlockState blockState = Blocks.TORCH.defaultBlockState();
@@ -614,7 +537,7 @@ public class BuildingMethods {
 			BlockState chestState = Blocks.CHEST.defaultBlockState().setValue(ChestBlock.FACING, facing);
 			BuildingMethods.ReplaceBlock(world, pos.relative(facing.getClockWise()), chestState);
 
-			if (stacks.size() > 27) {
+			if (drops.getStacks().size() > 27) {
 				// Add another chest to south of the existing chest.
 				BuildingMethods.ReplaceBlock(world, pos.relative(facing.getClockWise()).relative(facing.getOpposite()), chestState);
 			}
@@ -622,41 +545,22 @@ public class BuildingMethods {
 			BlockEntity tileEntity = world.getBlockEntity(pos.relative(facing.getClockWise()));
 			BlockEntity tileEntity2 = world.getBlockEntity(pos.relative(facing.getClockWise()).relative(facing.getOpposite()));
 
-			if (tileEntity instanceof ChestBlockEntity) {
-				ChestBlockEntity chestTile = (ChestBlockEntity) tileEntity;
-				ChestBlockEntity chestTile2 = (ChestBlockEntity) tileEntity2;
-
-				int i = 0;
-				boolean fillSecond = false;
-
-				// All of the stacks should be consolidated at this point.
-				for (ItemStack stack : stacks) {
-					if (i == 27 && !fillSecond) {
-						// Start filling the second chest.
-						fillSecond = true;
-						i = 0;
-						chestTile = chestTile2;
-					}
-
-					if (i >= 27 && fillSecond) {
-						// Too many items, discard the rest.
-						break;
-					} else {
-						chestTile.setItem(i, stack);
-					}
+			// All of the stacks are consolidated at this point; anything which doesn't fit in the chests is discarded.
+			if (tileEntity instanceof ChestBlockEntity chestTile) {
+				drops.depositInto(chestTile);
 
-					i++;
+				if (tileEntity2 instanceof ChestBlockEntity chestTile2) {
+					drops.depositInto(chestTile2);
 				}
 			}
 		}
 	}
 
-	private static Tuple<ArrayList<ItemStack>, ArrayList<BlockPos>> CreateLadderShaft(
+	private static ArrayList<BlockPos> CreateLadderShaft(
 			ServerLevel world,
 			BlockPos pos,
-			ArrayList<ItemStack> originalStacks,
+			DropAggregator drops,
 			Direction houseFacing,
-			ArrayList<Item> blocksToNotAdd,
 			int minimumHeightForMineshaft) {
 		int torchCounter = 0;
 
@@ -721,7 +625,7 @@ public class BuildingMethods {
 						// Make sure that this is a normal solid block and not a liquid or partial block.
 						if (!(surroundingBlock == Blocks.STONE || surroundingBlock == Blocks.ANDESITE || surroundingBlock == Blocks.DIORITE || surroundingBlock == Blocks.GRANITE)) {
 							// This is not a stone block. Get the drops then replace it with stone.
-							originalStacks = BuildingMethods.ConsolidateDrops(world, tempPos, surroundingState, originalStacks, blocksToNotAdd);
+							drops.addDrops(world, tempPos, surroundingState);
 
 							BuildingMethods.ReplaceBlock(world, tempPos, Blocks.STONE);
 						}
@@ -738,7 +642,7 @@ public class BuildingMethods {
 							|| surroundingBlock instanceof LiquidBlock) {
 						// This is not a solid block. Get the drops then replace
 						// it with stone.
-						originalStacks = BuildingMethods.ConsolidateDrops(world, tempPos, surroundingState, originalStacks, blocksToNotAdd);
+						drops.addDrops(world, tempPos, surroundingState);
 
 						BuildingMethods.ReplaceBlock(world, tempPos, Blocks.STONE);
 					}
@@ -746,7 +650,7 @@ public class BuildingMethods {
 			}
 
 			// Get the block drops then replace it with a ladder.
-			originalStacks = BuildingMethods.ConsolidateDrops(world, pos, state, originalStacks, blocksToNotAdd);
+			drops.addDrops(world, pos, state);
 
 			// Don't place a ladder at this location since it will be destroyed.
 			if (pos.getY() >= minimumHeightForMineshaft) {
@@ -756,7 +660,7 @@ public class BuildingMethods {
 			pos = pos.below();
 		}
 
-		return new Tuple<>(originalStacks, torchPositions);
+		return torchPositions;
 	}
 	public static BlockState getStainedGlassBlock(FullDyeColor color) {
 		switch (color) {
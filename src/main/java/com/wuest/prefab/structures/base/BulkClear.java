@@ -0,0 +1,325 @@
+package com.wuest.prefab.structures.base;
+
+import it.unimi.dsi.fastutil.longs.Long2BooleanOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.*;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.AttachFace;
+import net.minecraft.world.level.block.state.properties.BedPart;
+import net.minecraft.world.level.block.state.properties.BlockStateProperties;
+import net.minecraft.world.level.block.state.properties.DoubleBlockHalf;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+import java.util.ArrayList;
+import java.util.function.BiPredicate;
+
+/**
+ * This class is used to clear large volumes of blocks one chunk section at a time.
+ * Sections which only contain air are skipped entirely, blocks are read straight from the section and air blocks are never written.
+ * Blocks inside the volume are cleared without shape updates since every neighbor is cleared as well; only the edge of the
+ * volume updates the shapes of the blocks around it.
+ * Attachable blocks are removed before the volume is cleared so they don't pop off as drops; in the single block border
+ * around the volume only the attachable blocks whose support is cleared are removed.
+ */
+public final class BulkClear {
+    /**
+     * Sends the block update to clients without cascading shape updates to neighbors.
+     */
+    private static final int InteriorFlags = Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE;
+
+    /**
+     * Clears blocks on the edge of a volume; neighbors outside the volume still get their shapes updated.
+     */
+    private static final int EdgeFlags = Block.UPDATE_CLIENTS;
+
+    private BulkClear() {
+    }
+
+    /**
+     * Determines if this block is attached to a neighbor and would pop off as a drop if that neighbor were removed.
+     *
+     * @param state The block state to check.
+     * @return True if this is an attachable block, otherwise false.
+     */
+    public static boolean isAttachable(BlockState state) {
+        Block block = state.getBlock();
+
+        return block instanceof TorchBlock
+                || block instanceof SignBlock
+                || block instanceof LeverBlock
+                || block instanceof ButtonBlock
+                || block instanceof BedBlock
+                || block instanceof CarpetBlock
+                || block instanceof FlowerPotBlock
+                || block instanceof SugarCaneBlock
+                || block instanceof BasePressurePlateBlock
+                || block instanceof DoorBlock
+                || block instanceof LadderBlock
+                || block instanceof VineBlock
+                || block instanceof RedStoneWireBlock
+                || block instanceof DiodeBlock
+                || block instanceof AbstractBannerBlock
+                || block instanceof LanternBlock
+                || block instanceof BaseRailBlock;
+    }
+
+    /**
+     * Clears all the non-air blocks between the two corners.
+     *
+     * @param world       The level to clear the blocks in.
+     * @param startPos    One corner of the volume.
+     * @param endPos      The opposite corner of the volume.
+     * @param shouldClear Called for every non-air block in the volume before it is cleared. Return false to keep the block.
+     */
+    public static void clearVolume(Level world, BlockPos startPos, BlockPos endPos, BiPredicate<BlockPos, BlockState> shouldClear) {
+        BlockPos minPos = new BlockPos(Math.min(startPos.getX(), endPos.getX()), Math.min(startPos.getY(), endPos.getY()), Math.min(startPos.getZ(), endPos.getZ()));
+        BlockPos maxPos = new BlockPos(Math.max(startPos.getX(), endPos.getX()), Math.max(startPos.getY(), endPos.getY()), Math.max(startPos.getZ(), endPos.getZ()));
+
+        // The predicate can have side effects such as collecting drops, so every position is only asked once.
+        Long2BooleanOpenHashMap decisions = new Long2BooleanOpenHashMap();
+        BiPredicate<BlockPos, BlockState> decide = (pos, state) -> {
+            long key = pos.asLong();
+
+            if (!decisions.containsKey(key)) {
+                decisions.put(key, shouldClear.test(pos, state));
+            }
+
+            return decisions.get(key);
+        };
+
+        // Remove anything attached to the blocks being cleared first so it doesn't pop off as drops later.
+        BulkClear.removeAttachables(world, minPos, maxPos, decide);
+
+        BulkClear.forEachSection(world, minPos, maxPos, minPos, maxPos, (chunk, section, sectionPos, bounds) -> {
+            BlockPos.MutableBlockPos currentPos = new BlockPos.MutableBlockPos();
+
+            for (int y = bounds[1]; y <= bounds[4]; y++) {
+                for (int z = bounds[2]; z <= bounds[5]; z++) {
+                    for (int x = bounds[0]; x <= bounds[3]; x++) {
+                        BlockState state = section.getBlockState(x & 15, y & 15, z & 15);
+
+                        if (state.isAir()) {
+                            continue;
+                        }
+
+                        currentPos.set(x, y, z);
+
+                        if (decide.test(currentPos.immutable(), state)) {
+                            boolean onEdge = x == minPos.getX() || x == maxPos.getX()
+                                    || y == minPos.getY() || y == maxPos.getY()
+                                    || z == minPos.getZ() || z == maxPos.getZ();
+
+                            world.setBlock(currentPos, Blocks.AIR.defaultBlockState(), onEdge ? BulkClear.EdgeFlags : BulkClear.InteriorFlags);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes attachable blocks inside the volume and the attachable blocks in the single block border around it which
+     * are supported by a block that is cleared.
+     * Chunks which are only part of the border are skipped when they aren't loaded.
+     *
+     * @param world       The level to remove the blocks from.
+     * @param minPos      The minimum corner of the volume.
+     * @param maxPos      The maximum corner of the volume.
+     * @param shouldClear Called for attachable blocks and their supports before they are removed.
+     */
+    private static void removeAttachables(Level world, BlockPos minPos, BlockPos maxPos, BiPredicate<BlockPos, BlockState> shouldClear) {
+        BlockPos borderMin = minPos.offset(-1, -1, -1);
+        BlockPos borderMax = maxPos.offset(1, 1, 1);
+
+        BulkClear.forEachSection(world, borderMin, borderMax, minPos, maxPos, (chunk, section, sectionPos, bounds) -> {
+            // Only walk the blocks of sections whose palette contains an attachable block.
+            if (!section.maybeHas(BulkClear::isAttachable)) {
+                return;
+            }
+
+            BlockPos.MutableBlockPos currentPos = new BlockPos.MutableBlockPos();
+
+            for (int y = bounds[1]; y <= bounds[4]; y++) {
+                for (int z = bounds[2]; z <= bounds[5]; z++) {
+                    for (int x = bounds[0]; x <= bounds[3]; x++) {
+                        BlockState state = section.getBlockState(x & 15, y & 15, z & 15);
+
+                        if (!BulkClear.isAttachable(state)) {
+                            continue;
+                        }
+
+                        BlockPos pos = currentPos.set(x, y, z).immutable();
+                        boolean insideVolume = BulkClear.isInside(pos, minPos, maxPos);
+
+                        if (!insideVolume && !BulkClear.isSupportCleared(world, pos, state, minPos, maxPos, shouldClear)) {
+                            continue;
+                        }
+
+                        // This also lets the predicate collect the drops of border blocks.
+                        if (!shouldClear.test(pos, state)) {
+                            continue;
+                        }
+
+                        BulkClear.removeAttachable(world, pos, state, shouldClear);
+
+                        if (!insideVolume) {
+                            // Blocks outside the volume aren't cleared, so they need to know about the removal.
+                            Blocks.AIR.defaultBlockState().updateNeighbourShapes(world, pos, Block.UPDATE_CLIENTS);
+                            world.updateNeighborsAt(pos, state.getBlock());
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Determines if an attachable block outside the volume is held up by a block which is about to be cleared.
+     */
+    private static boolean isSupportCleared(Level world, BlockPos pos, BlockState state, BlockPos minPos, BlockPos maxPos,
+                                            BiPredicate<BlockPos, BlockState> shouldClear) {
+        for (BlockPos supportPos : BulkClear.getSupports(pos, state)) {
+            if (!BulkClear.isInside(supportPos, minPos, maxPos)) {
+                continue;
+            }
+
+            BlockState supportState = world.getBlockState(supportPos);
+
+            if (!supportState.isAir() && shouldClear.test(supportPos, supportState)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the positions of the blocks an attachable block can be held up by.
+     */
+    private static ArrayList<BlockPos> getSupports(BlockPos pos, BlockState state) {
+        Block block = state.getBlock();
+        ArrayList<BlockPos> supports = new ArrayList<>();
+
+        if (block instanceof FaceAttachedHorizontalDirectionalBlock) {
+            AttachFace face = state.getValue(FaceAttachedHorizontalDirectionalBlock.FACE);
+
+            if (face == AttachFace.FLOOR) {
+                supports.add(pos.below());
+            } else if (face == AttachFace.CEILING) {
+                supports.add(pos.above());
+            } else {
+                supports.add(pos.relative(state.getValue(FaceAttachedHorizontalDirectionalBlock.FACING).getOpposite()));
+            }
+        } else if (block instanceof WallHangingSignBlock) {
+            // Wall hanging signs hang from the blocks on either side of them.
+            Direction facing = state.getValue(WallHangingSignBlock.FACING);
+            supports.add(pos.relative(facing.getClockWise()));
+            supports.add(pos.relative(facing.getCounterClockWise()));
+        } else if (block instanceof WallTorchBlock || block instanceof WallSignBlock
+                || block instanceof LadderBlock || block instanceof WallBannerBlock) {
+            supports.add(pos.relative(state.getValue(BlockStateProperties.HORIZONTAL_FACING).getOpposite()));
+        } else if (block instanceof VineBlock) {
+            for (Direction direction : Direction.values()) {
+                if (direction != Direction.DOWN && state.getValue(VineBlock.getPropertyForFace(direction))) {
+                    supports.add(pos.relative(direction));
+                }
+            }
+        } else if (block instanceof CeilingHangingSignBlock
+                || (block instanceof LanternBlock && state.getValue(LanternBlock.HANGING))) {
+            supports.add(pos.above());
+        } else {
+            supports.add(pos.below());
+        }
+
+        return supports;
+    }
+
+    private static boolean isInside(BlockPos pos, BlockPos minPos, BlockPos maxPos) {
+        return pos.getX() >= minPos.getX() && pos.getX() <= maxPos.getX()
+                && pos.getY() >= minPos.getY() && pos.getY() <= maxPos.getY()
+                && pos.getZ() >= minPos.getZ() && pos.getZ() <= maxPos.getZ();
+    }
+
+    private static void removeAttachable(Level world, BlockPos pos, BlockState state, BiPredicate<BlockPos, BlockState> shouldClear) {
+        // The other half of doors and beds are removed at the same time so neither half breaks into a drop.
+        BlockPos otherHalfPos = null;
+
+        if (state.getBlock() instanceof DoorBlock) {
+            otherHalfPos = state.getValue(BlockStateProperties.DOUBLE_BLOCK_HALF) == DoubleBlockHalf.LOWER ? pos.above() : pos.below();
+        } else if (state.getBlock() instanceof BedBlock) {
+            Direction bedFacing = state.getValue(BedBlock.FACING);
+            otherHalfPos = state.getValue(BedBlock.PART) == BedPart.FOOT ? pos.relative(bedFacing) : pos.relative(bedFacing.getOpposite());
+        }
+
+        world.setBlock(pos, Blocks.AIR.defaultBlockState(), BulkClear.InteriorFlags);
+
+        if (otherHalfPos != null && world.getBlockState(otherHalfPos).getBlock() == state.getBlock()) {
+            // Only one half of doors and beds has drops; the predicate decides which one.
+            shouldClear.test(otherHalfPos, world.getBlockState(otherHalfPos));
+            world.setBlock(otherHalfPos, Blocks.AIR.defaultBlockState(), BulkClear.InteriorFlags);
+        }
+    }
+
+    /**
+     * Calls the consumer for every non-empty chunk section which intersects the volume.
+     * Chunks which hold part of the required volume are loaded; the other chunks are skipped when they aren't loaded.
+     */
+    private static void forEachSection(Level world, BlockPos minPos, BlockPos maxPos, BlockPos requiredMin, BlockPos requiredMax, SectionConsumer consumer) {
+        int minY = Math.max(minPos.getY(), world.getMinBuildHeight());
+        int maxY = Math.min(maxPos.getY(), world.getMaxBuildHeight() - 1);
+
+        if (minY > maxY) {
+            return;
+        }
+
+        for (int sectionX = SectionPos.blockToSectionCoord(minPos.getX()); sectionX <= SectionPos.blockToSectionCoord(maxPos.getX()); sectionX++) {
+            for (int sectionZ = SectionPos.blockToSectionCoord(minPos.getZ()); sectionZ <= SectionPos.blockToSectionCoord(maxPos.getZ()); sectionZ++) {
+                boolean required = sectionX >= SectionPos.blockToSectionCoord(requiredMin.getX())
+                        && sectionX <= SectionPos.blockToSectionCoord(requiredMax.getX())
+                        && sectionZ >= SectionPos.blockToSectionCoord(requiredMin.getZ())
+                        && sectionZ <= SectionPos.blockToSectionCoord(requiredMax.getZ());
+
+                if (!required && !world.hasChunk(sectionX, sectionZ)) {
+                    continue;
+                }
+
+                LevelChunk chunk = world.getChunk(sectionX, sectionZ);
+
+                for (int sectionY = SectionPos.blockToSectionCoord(minY); sectionY <= SectionPos.blockToSectionCoord(maxY); sectionY++) {
+                    LevelChunkSection section = chunk.getSection(chunk.getSectionIndexFromSectionY(sectionY));
+
+                    if (section.hasOnlyAir()) {
+                        // Nothing to clear in this section.
+                        continue;
+                    }
+
+                    SectionPos sectionPos = SectionPos.of(sectionX, sectionY, sectionZ);
+                    int[] bounds = new int[]{
+                            Math.max(minPos.getX(), sectionPos.minBlockX()),
+                            Math.max(minY, sectionPos.minBlockY()),
+                            Math.max(minPos.getZ(), sectionPos.minBlockZ()),
+                            Math.min(maxPos.getX(), sectionPos.maxBlockX()),
+                            Math.min(maxY, sectionPos.maxBlockY()),
+                            Math.min(maxPos.getZ(), sectionPos.maxBlockZ())};
+
+                    consumer.accept(chunk, section, sectionPos, bounds);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SectionConsumer {
+        /**
+         * @param chunk      The chunk containing the section.
+         * @param section    The section being processed.
+         * @param sectionPos The position of the section.
+         * @param bounds     The block bounds of the volume inside this section: minX, minY, minZ, maxX, maxY, maxZ.
+         */
+        void accept(LevelChunk chunk, LevelChunkSection section, SectionPos sectionPos, int[] bounds);
+    }
+}
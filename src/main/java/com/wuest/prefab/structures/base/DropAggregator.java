@@ -0,0 +1,174 @@
+package com.wuest.prefab.structures.base;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.Container;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.HopperBlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class collects the drops of every block broken during a single operation (clearing a structure's space, a sickle swing, digging a mineshaft).
+ * Drops are merged by item and components as they are collected so that the operation emits a handful of full stacks instead of an item entity per block.
+ */
+public class DropAggregator {
+    private final LinkedHashMap<DropKey, Integer> drops = new LinkedHashMap<>();
+    private final HashSet<Item> itemsToNotAdd = new HashSet<>();
+
+    /**
+     * Initializes a new instance of the {@link DropAggregator} class.
+     */
+    public DropAggregator() {
+    }
+
+    /**
+     * Initializes a new instance of the {@link DropAggregator} class.
+     *
+     * @param itemsToNotAdd The items which should be discarded instead of collected.
+     */
+    public DropAggregator(Collection<Item> itemsToNotAdd) {
+        if (itemsToNotAdd != null) {
+            this.itemsToNotAdd.addAll(itemsToNotAdd);
+        }
+    }
+
+    /**
+     * Collects the drops for a block as if it was broken without a tool.
+     *
+     * @param world The world which the block resides.
+     * @param pos   The block position.
+     * @param state The current block state.
+     */
+    public void addDrops(ServerLevel world, BlockPos pos, BlockState state) {
+        BlockEntity blockEntity = state.hasBlockEntity() ? world.getBlockEntity(pos) : null;
+
+        for (ItemStack stack : Block.getDrops(state, world, pos, blockEntity)) {
+            this.add(stack);
+        }
+    }
+
+    /**
+     * Adds a stack to the collected drops.
+     *
+     * @param stack The stack to add. This stack is not modified.
+     */
+    public void add(ItemStack stack) {
+        if (stack.isEmpty() || this.itemsToNotAdd.contains(stack.getItem())) {
+            return;
+        }
+
+        this.drops.merge(new DropKey(stack), stack.getCount(), Integer::sum);
+    }
+
+    /**
+     * Adds a collection of stacks to the collected drops.
+     *
+     * @param stacks The stacks to add.
+     */
+    public void addAll(Collection<ItemStack> stacks) {
+        for (ItemStack stack : stacks) {
+            this.add(stack);
+        }
+    }
+
+    /**
+     * Removes all collected drops of the specified item.
+     *
+     * @param item The item to remove.
+     */
+    public void remove(Item item) {
+        this.drops.keySet().removeIf(key -> key.stack.getItem() == item);
+    }
+
+    public boolean isEmpty() {
+        return this.drops.isEmpty();
+    }
+
+    /**
+     * Gets the collected drops as stacks no larger than their maximum stack size.
+     *
+     * @return A new list of item stacks.
+     */
+    public ArrayList<ItemStack> getStacks() {
+        ArrayList<ItemStack> stacks = new ArrayList<>();
+
+        for (Map.Entry<DropKey, Integer> entry : this.drops.entrySet()) {
+            ItemStack template = entry.getKey().stack;
+            int remaining = entry.getValue();
+
+            while (remaining > 0) {
+                int count = Math.min(remaining, template.getMaxStackSize());
+                stacks.add(template.copyWithCount(count));
+                remaining -= count;
+            }
+        }
+
+        return stacks;
+    }
+
+    /**
+     * Spawns the collected drops as item entities at the specified position and clears this aggregator.
+     *
+     * @param world The world to spawn the drops in.
+     * @param pos   The position to spawn the drops at.
+     */
+    public void spawnAt(Level world, BlockPos pos) {
+        for (ItemStack stack : this.getStacks()) {
+            Block.popResource(world, pos, stack);
+        }
+
+        this.drops.clear();
+    }
+
+    /**
+     * Moves as many of the collected drops as possible into a container.
+     * Anything which doesn't fit is kept in this aggregator.
+     *
+     * @param container The container to fill.
+     */
+    public void depositInto(Container container) {
+        ArrayList<ItemStack> stacks = this.getStacks();
+        this.drops.clear();
+
+        for (ItemStack stack : stacks) {
+            ItemStack leftOver = HopperBlockEntity.addItem(null, container, stack, null);
+
+            if (!leftOver.isEmpty()) {
+                this.add(leftOver);
+            }
+        }
+    }
+
+    /**
+     * Identifies a drop by its item and components; the count of the wrapped stack is ignored.
+     */
+    private static final class DropKey {
+        private final ItemStack stack;
+        private final int hash;
+
+        private DropKey(ItemStack stack) {
+            this.stack = stack.copyWithCount(1);
+            this.hash = ItemStack.hashItemAndComponents(this.stack);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof DropKey other && ItemStack.isSameItemSameComponents(this.stack, other.stack);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.wuest.prefab.structures.base;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.EntityBlock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+/**
+ * This class merges the scanned blocks of a structure into cuboid fills.
+ * Blocks are grouped by their serialized state; each group is then covered greedily by growing a run along east/west, the
+ * run into a rectangle along north/south and the rectangle into a cuboid upwards.
+ * Blocks with tile entities, block state data or sub-blocks always stay individual blocks.
+ */
+public class FillEncoder {
+    /**
+     * Cuboids smaller than this stay as individual blocks; a fill record is only smaller on disk once it replaces a few blocks.
+     */
+    public static final int MinimumFillVolume = 4;
+
+    /**
+     * Replaces the blocks of a structure which can be grouped into cuboids with fills.
+     * The remaining blocks keep their original order.
+     *
+     * @param structure The scanned structure.
+     */
+    public static void encode(Structure structure) {
+        HashSet<Long> tileEntityPositions = new HashSet<>();
+
+        for (BuildTileEntity tileEntity : structure.tileEntities) {
+            tileEntityPositions.add(FillEncoder.pack(tileEntity.getStartingPosition()));
+        }
+
+        // Group the blocks which can be part of a fill by their serialized state.
+        LinkedHashMap<String, HashMap<Long, BuildBlock>> groups = new LinkedHashMap<>();
+        HashMap<String, Boolean> fillableBlocks = new HashMap<>();
+
+        for (BuildBlock block : structure.getBlocks()) {
+            long key = FillEncoder.pack(block.getStartingPosition());
+
+            if (block.getSubBlock() != null
+                    || !block.getBlockStateData().equals("")
+                    || tileEntityPositions.contains(key)
+                    || !fillableBlocks.computeIfAbsent(block.getResourceLocation().toString(), name -> FillEncoder.isFillable(block))) {
+                continue;
+            }
+
+            groups.computeIfAbsent(FillEncoder.getStateKey(block), stateKey -> new HashMap<>()).put(key, block);
+        }
+
+        HashSet<BuildBlock> filledBlocks = new HashSet<>();
+
+        for (HashMap<Long, BuildBlock> group : groups.values()) {
+            if (group.size() < FillEncoder.MinimumFillVolume) {
+                continue;
+            }
+
+            HashSet<Long> remaining = new HashSet<>(group.keySet());
+
+            // Walk the blocks bottom up so every cuboid starts at its lowest, north-western corner.
+            ArrayList<Long> ordered = new ArrayList<>(group.keySet());
+            ordered.sort((first, second) -> {
+                int result = Integer.compare(BlockPos.getY(first), BlockPos.getY(second));
+
+                if (result == 0) {
+                    result = Integer.compare(BlockPos.getZ(first), BlockPos.getZ(second));
+                }
+
+                return result == 0 ? Integer.compare(BlockPos.getX(first), BlockPos.getX(second)) : result;
+            });
+
+            for (long start : ordered) {
+                if (!remaining.contains(start)) {
+                    continue;
+                }
+
+                int minX = BlockPos.getX(start);
+                int minY = BlockPos.getY(start);
+                int minZ = BlockPos.getZ(start);
+                int maxX = minX;
+                int maxY = minY;
+                int maxZ = minZ;
+
+                while (remaining.contains(BlockPos.asLong(maxX + 1, minY, minZ))) {
+                    maxX++;
+                }
+
+                while (FillEncoder.isFilled(remaining, minX, maxX, minY, minY, maxZ + 1, maxZ + 1)) {
+                    maxZ++;
+                }
+
+                while (FillEncoder.isFilled(remaining, minX, maxX, maxY + 1, maxY + 1, minZ, maxZ)) {
+                    maxY++;
+                }
+
+                if ((maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1) < FillEncoder.MinimumFillVolume) {
+                    continue;
+                }
+
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        for (int x = minX; x <= maxX; x++) {
+                            long position = BlockPos.asLong(x, y, z);
+                            remaining.remove(position);
+                            filledBlocks.add(group.get(position));
+                        }
+                    }
+                }
+
+                BuildFill fill = new BuildFill();
+                fill.setBlock(group.get(start));
+                fill.setEndPosition(BuildFill.createOffset(maxX, maxY, maxZ));
+                structure.getFills().add(fill);
+            }
+        }
+
+        if (!filledBlocks.isEmpty()) {
+            ArrayList<BuildBlock> blocks = new ArrayList<>(structure.getBlocks().size() - filledBlocks.size());
+
+            for (BuildBlock block : structure.getBlocks()) {
+                if (!filledBlocks.contains(block)) {
+                    blocks.add(block);
+                }
+            }
+
+            structure.setBlocks(blocks);
+        }
+    }
+
+    private static boolean isFillable(BuildBlock block) {
+        Block foundBlock = BuiltInRegistries.BLOCK.get(block.getResourceLocation());
+
+        // Blocks with a block entity have their data written per position.
+        return foundBlock != null && !(foundBlock instanceof EntityBlock);
+    }
+
+    private static boolean isFilled(HashSet<Long> remaining, int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    if (!remaining.contains(BlockPos.asLong(x, y, z))) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static String getStateKey(BuildBlock block) {
+        StringBuilder key = new StringBuilder(block.getResourceLocation().toString());
+
+        for (BuildProperty property : block.getProperties()) {
+            key.append(';').append(property.getName()).append('=').append(property.getValue());
+        }
+
+        return key.toString();
+    }
+
+    private static long pack(PositionOffset offset) {
+        return BlockPos.asLong(BuildFill.getX(offset), offset.getHeightOffset(), BuildFill.getZ(offset));
+    }
+}
@@ -0,0 +1,77 @@
+package com.wuest.prefab.structures.base;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.HashMap;
+
+/**
+ * This class caches the serialized form of each distinct block state seen during a structure scan.
+ * The registry key and properties of a state are stringified the first time the state is seen; every later block with the
+ * same state only copies the cached strings.
+ */
+public class ScannedStateCache {
+    private final HashMap<BlockState, CachedState> states = new HashMap<>();
+
+    /**
+     * Creates a build block from a block state.
+     *
+     * @param state       The block state.
+     * @param currentPos  The position of the block.
+     * @param originalPos The position which the block offset is relative to.
+     * @return A new Build block object.
+     */
+    public BuildBlock createBuildBlock(BlockState state, BlockPos currentPos, BlockPos originalPos) {
+        CachedState cachedState = this.states.get(state);
+
+        if (cachedState == null) {
+            BuildBlock buildBlock = Structure.createBuildBlockFromBlockState(state, state.getBlock(), currentPos, originalPos);
+            this.states.put(state, new CachedState(buildBlock));
+            return buildBlock;
+        }
+
+        BuildBlock buildBlock = new BuildBlock();
+        buildBlock.setBlockDomain(cachedState.blockDomain);
+        buildBlock.setBlockName(cachedState.blockName);
+        buildBlock.setStartingPosition(Structure.getStartingPositionFromOriginalAndCurrentPosition(currentPos, originalPos));
+        buildBlock.blockPos = currentPos;
+
+        for (int i = 0; i < cachedState.propertyNames.length; i++) {
+            BuildProperty property = new BuildProperty();
+            property.setName(cachedState.propertyNames[i]);
+            property.setValue(cachedState.propertyValues[i]);
+            buildBlock.getProperties().add(property);
+        }
+
+        return buildBlock;
+    }
+
+    /**
+     * Gets the number of distinct block states which have been serialized.
+     *
+     * @return The number of cached block states.
+     */
+    public int size() {
+        return this.states.size();
+    }
+
+    private static final class CachedState {
+        private final String blockDomain;
+        private final String blockName;
+        private final String[] propertyNames;
+        private final String[] propertyValues;
+
+        private CachedState(BuildBlock buildBlock) {
+            this.blockDomain = buildBlock.getBlockDomain();
+            this.blockName = buildBlock.getBlockName();
+            this.propertyNames = new String[buildBlock.getProperties().size()];
+            this.propertyValues = new String[buildBlock.getProperties().size()];
+
+            for (int i = 0; i < this.propertyNames.length; i++) {
+                BuildProperty property = buildBlock.getProperties().get(i);
+                this.propertyNames[i] = property.getName();
+                this.propertyValues[i] = property.getValue();
+            }
+        }
+    }
+}
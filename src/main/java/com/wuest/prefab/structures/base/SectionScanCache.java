@@ -0,0 +1,56 @@
+package com.wuest.prefab.structures.base;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * This class holds the results of the last scan of a region, one entry per chunk section.
+ * Each entry keeps a content hash of the section with the blocks and tile entities it produced so a rescan of the same
+ * region can re-use every section whose hash hasn't changed.
+ */
+public class SectionScanCache {
+    private final String scanKey;
+    private final HashMap<Long, SectionScan> sections = new HashMap<>();
+
+    /**
+     * Initializes a new instance of the {@link SectionScanCache} class.
+     *
+     * @param scanKey Identifies the region and options of the scan; a cache is only re-used for a scan with the same key.
+     */
+    public SectionScanCache(String scanKey) {
+        this.scanKey = scanKey;
+    }
+
+    public String getScanKey() {
+        return this.scanKey;
+    }
+
+    /**
+     * Gets the cached scan of a section.
+     *
+     * @param sectionKey The packed section position.
+     * @return The cached section scan or null if this section wasn't part of the last scan.
+     */
+    public SectionScan get(long sectionKey) {
+        return this.sections.get(sectionKey);
+    }
+
+    public void put(long sectionKey, SectionScan sectionScan) {
+        this.sections.put(sectionKey, sectionScan);
+    }
+
+    /**
+     * The blocks and tile entities produced by a single chunk section.
+     */
+    public static final class SectionScan {
+        public final long hash;
+        public final ArrayList<BuildBlock> blocks;
+        public final ArrayList<BuildTileEntity> tileEntities;
+
+        public SectionScan(long hash, ArrayList<BuildBlock> blocks, ArrayList<BuildTileEntity> tileEntities) {
+            this.hash = hash;
+            this.blocks = blocks;
+            this.tileEntities = tileEntities;
+        }
+    }
+}
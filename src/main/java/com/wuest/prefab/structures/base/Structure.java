@@ -8,9 +8,11 @@ import com.wuest.prefab.blocks.BlockFlags;
 import com.wuest.prefab.blocks.FullDyeColor;
 import com.wuest.prefab.gui.GuiLangKeys;
 import com.wuest.prefab.structures.config.StructureConfiguration;
+import com.wuest.prefab.structures.events.BuildChunkTickets;
 import com.wuest.prefab.structures.events.StructureEventHandler;
 
 import net.minecraft.ChatFormatting;
+import net.minecraft.Util;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 
@@ -28,6 +30,7 @@ import net.minecraft.world.entity.decoration.HangingEntity;
 import net.minecraft.world.entity.decoration.ItemFrame;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.DyeColor;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.*;
 import net.minecraft.world.level.block.entity.BlockEntity;
@@ -41,9 +44,11 @@ import net.minecraft.world.level.block.state.properties.Property;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
 
-import java.io.StringWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Each structure represents a building which is pre-defined in a JSON file.
@@ -61,6 +66,8 @@ public class Structure {
     public BlockPos originalPos;
     public boolean hasAirBlocks = false;
     public boolean entitiesRemoved = false;
+    public ArrayList<ChunkPos> ticketedChunks = new ArrayList<>();
+    public ServerLevel ticketLevel;
 
     @Expose
     public ArrayList<BuildTileEntity> tileEntities = new ArrayList<>();
@@ -72,6 +79,10 @@ public class Structure {
     private BuildClear clearSpace;
     @Expose
     private ArrayList<BuildBlock> blocks;
+    @Expose
+    private ArrayList<BuildFill> fills;
+
+    private ArrayList<BuildBlock> blocksWithFills;
 
     public Structure() {
         this.Initialize();
@@ -96,110 +107,166 @@ public class Structure {
 
     public static void CreateStructureFile(Structure structure, String fileLocation) {
         try {
-            Gson converter = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
-            StringWriter stringWriter = new StringWriter();
-            converter.toJson(structure, stringWriter);
-
-            ZipUtil.zipStringToFile(stringWriter.toString(), fileLocation);
+            Structure.writeStructureFile(structure, fileLocation);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Writes the structure file on the background I/O executor.
+     * The structure must not be modified until the returned future has completed.
+     *
+     * @param structure    The structure to write.
+     * @param fileLocation The location of the file to write.
+     * @return A future which completes once the file has been written.
+     */
+    public static CompletableFuture<Void> CreateStructureFileAsync(Structure structure, String fileLocation) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Structure.writeStructureFile(structure, fileLocation);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, Util.ioPool());
+    }
+
+    private static void writeStructureFile(Structure structure, String fileLocation) throws IOException {
+        Gson converter = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+
+        // The JSON is streamed straight into the compressed file instead of being built up as a string first.
+        ZipUtil.zipJsonToFile(fileLocation, jsonWriter -> converter.toJson(structure, structure.getClass(), jsonWriter));
+    }
+
     public static void ScanStructure(Level world, BlockPos originalPos, BlockPos cornerPos1, BlockPos cornerPos2, String fileLocation, BuildClear clearedSpace,
                                      Direction playerFacing, boolean includeAir, boolean excludeWater) {
         Structure scannedStructure = new Structure();
         scannedStructure.setClearSpace(clearedSpace);
 
+        ScannedStateCache stateCache = new ScannedStateCache();
+
         for (BlockPos currentPos : BlockPos.betweenClosed(cornerPos1, cornerPos2)) {
-            if (world.isEmptyBlock(currentPos) && !includeAir) {
-                continue;
-            }
+            BlockPos scanPos = currentPos.immutable();
+            Structure.scanPosition(scannedStructure, world, scanPos, world.getBlockState(scanPos), originalPos, includeAir, excludeWater, stateCache);
+        }
 
-            BlockState currentState = world.getBlockState(currentPos);
-            Block currentBlock = currentState.getBlock();
+        Structure.scanEntities(scannedStructure, world, originalPos, cornerPos1, cornerPos2);
 
-            if (currentState.getBlock() == Blocks.WATER && excludeWater) {
-                continue;
-            }
+        FillEncoder.encode(scannedStructure);
 
-            BuildBlock buildBlock = Structure.createBuildBlockFromBlockState(currentState, currentBlock, currentPos, originalPos);
+        Structure.CreateStructureFile(scannedStructure, fileLocation);
+    }
 
-            if (currentBlock instanceof DoorBlock) {
-                DoubleBlockHalf blockHalf = currentState.getValue(DoorBlock.HALF);
+    /**
+     * Adds the block (and tile entity) at a single position to a structure being scanned.
+     *
+     * @param scannedStructure The structure being scanned.
+     * @param world            The world being scanned.
+     * @param currentPos       The position to scan.
+     * @param currentState     The block state at the position to scan.
+     * @param originalPos      The position which all block offsets are relative to.
+     * @param includeAir       Determines if air blocks are added to the structure.
+     * @param excludeWater     Determines if water blocks are left out of the structure.
+     * @param stateCache       The serialized block states for this scan.
+     */
+    public static void scanPosition(Structure scannedStructure, Level world, BlockPos currentPos, BlockState currentState, BlockPos originalPos, boolean includeAir,
+                                    boolean excludeWater, ScannedStateCache stateCache) {
+        if (currentState.isAir() && !includeAir) {
+            return;
+        }
 
-                if (blockHalf == DoubleBlockHalf.LOWER) {
-                    BlockState upperHalfState = world.getBlockState(currentPos.above());
+        Block currentBlock = currentState.getBlock();
 
-                    if (upperHalfState.getBlock() instanceof DoorBlock) {
-                        Block upperBlock = upperHalfState.getBlock();
-                        BuildBlock upperHalf = Structure.createBuildBlockFromBlockState(upperHalfState, upperBlock, currentPos.above(), originalPos);
+        if (currentState.getBlock() == Blocks.WATER && excludeWater) {
+            return;
+        }
 
-                        buildBlock.setSubBlock(upperHalf);
-                    }
-                } else {
-                    // Don't process upper door halves. These were already done.
-                    continue;
-                }
-            } else if (currentBlock instanceof BedBlock) {
-                BedPart bedPart = currentState.getValue(BedBlock.PART);
+        BuildBlock buildBlock = stateCache.createBuildBlock(currentState, currentPos, originalPos);
 
-                if (bedPart == BedPart.HEAD) {
-                    BlockState bedFoot = null;
-                    boolean foundFoot = false;
-                    Direction facing = Direction.NORTH;
+        if (currentBlock instanceof DoorBlock) {
+            DoubleBlockHalf blockHalf = currentState.getValue(DoorBlock.HALF);
 
-                    while (!foundFoot) {
-                        bedFoot = world.getBlockState(currentPos.relative(facing));
+            if (blockHalf == DoubleBlockHalf.LOWER) {
+                BlockState upperHalfState = world.getBlockState(currentPos.above());
 
-                        if (bedFoot.getBlock() instanceof BedBlock && bedFoot.getValue(BedBlock.PART) == BedPart.FOOT) {
-                            foundFoot = true;
-                            break;
-                        }
+                if (upperHalfState.getBlock() instanceof DoorBlock) {
+                    BuildBlock upperHalf = stateCache.createBuildBlock(upperHalfState, currentPos.above(), originalPos);
+
+                    buildBlock.setSubBlock(upperHalf);
+                }
+            } else {
+                // Don't process upper door halves. These were already done.
+                return;
+            }
+        } else if (currentBlock instanceof BedBlock) {
+            BedPart bedPart = currentState.getValue(BedBlock.PART);
 
-                        facing = facing.getClockWise();
+            if (bedPart == BedPart.HEAD) {
+                BlockState bedFoot = null;
+                boolean foundFoot = false;
+                Direction facing = Direction.NORTH;
 
-                        if (facing == Direction.NORTH) {
-                            // Got back to north, break out to avoid infinite loop.
-                            break;
-                        }
+                while (!foundFoot) {
+                    bedFoot = world.getBlockState(currentPos.relative(facing));
+
+                    if (bedFoot.getBlock() instanceof BedBlock && bedFoot.getValue(BedBlock.PART) == BedPart.FOOT) {
+                        foundFoot = true;
+                        break;
                     }
 
-                    if (foundFoot) {
-                        Block footBedBlock = bedFoot.getBlock();
-                        BuildBlock bed = Structure.createBuildBlockFromBlockState(bedFoot, footBedBlock, currentPos.relative(facing), originalPos);
-                        buildBlock.setSubBlock(bed);
+                    facing = facing.getClockWise();
+
+                    if (facing == Direction.NORTH) {
+                        // Got back to north, break out to avoid infinite loop.
+                        break;
                     }
-                } else {
-                    // Don't process foot of bed, it was already done.
-                    continue;
                 }
+
+                if (foundFoot) {
+                    BuildBlock bed = stateCache.createBuildBlock(bedFoot, currentPos.relative(facing), originalPos);
+                    buildBlock.setSubBlock(bed);
+                }
+            } else {
+                // Don't process foot of bed, it was already done.
+                return;
             }
+        }
 
-            scannedStructure.getBlocks().add(buildBlock);
+        scannedStructure.getBlocks().add(buildBlock);
 
-            BlockEntity tileEntity = world.getBlockEntity(currentPos);
+        // Only blocks which can have a tile entity need to be looked up.
+        BlockEntity tileEntity = currentState.hasBlockEntity() ? world.getBlockEntity(currentPos) : null;
 
-            if (tileEntity != null) {
-                // Don't write data for empty tile entities.
-                if ((tileEntity instanceof ChestBlockEntity && ((ChestBlockEntity) tileEntity).isEmpty())
-                        || (tileEntity instanceof FurnaceBlockEntity && ((FurnaceBlockEntity) tileEntity).isEmpty())) {
-                    continue;
-                }
+        if (tileEntity != null) {
+            // Don't write data for empty tile entities.
+            if ((tileEntity instanceof ChestBlockEntity && ((ChestBlockEntity) tileEntity).isEmpty())
+                    || (tileEntity instanceof FurnaceBlockEntity && ((FurnaceBlockEntity) tileEntity).isEmpty())) {
+                return;
+            }
 
-                ResourceLocation resourceLocation = BuiltInRegistries.BLOCK_ENTITY_TYPE.getKey(tileEntity.getType());
-                CompoundTag tagCompound = tileEntity.saveWithFullMetadata(world.registryAccess());
+            ResourceLocation resourceLocation = BuiltInRegistries.BLOCK_ENTITY_TYPE.getKey(tileEntity.getType());
+            CompoundTag tagCompound = tileEntity.saveWithFullMetadata(world.registryAccess());
 
-                BuildTileEntity buildTileEntity = new BuildTileEntity();
-                assert resourceLocation != null;
-                buildTileEntity.setEntityDomain(resourceLocation.getNamespace());
-                buildTileEntity.setEntityName(resourceLocation.getPath());
-                buildTileEntity.setStartingPosition(Structure.getStartingPositionFromOriginalAndCurrentPosition(currentPos, originalPos));
-                buildTileEntity.setEntityNBTData(tagCompound);
-                scannedStructure.tileEntities.add(buildTileEntity);
-            }
+            BuildTileEntity buildTileEntity = new BuildTileEntity();
+            assert resourceLocation != null;
+            buildTileEntity.setEntityDomain(resourceLocation.getNamespace());
+            buildTileEntity.setEntityName(resourceLocation.getPath());
+            buildTileEntity.setStartingPosition(Structure.getStartingPositionFromOriginalAndCurrentPosition(currentPos, originalPos));
+            buildTileEntity.setEntityNBTData(tagCompound);
+            scannedStructure.tileEntities.add(buildTileEntity);
         }
+    }
 
+    /**
+     * Adds the entities within the scanned area to a structure being scanned.
+     *
+     * @param scannedStructure The structure being scanned.
+     * @param world            The world being scanned.
+     * @param originalPos      The position which all entity offsets are relative to.
+     * @param cornerPos1       One corner of the scanned area.
+     * @param cornerPos2       The opposite corner of the scanned area.
+     */
+    public static void scanEntities(Structure scannedStructure, Level world, BlockPos originalPos, BlockPos cornerPos1, BlockPos cornerPos2) {
         int x_radiusRangeBegin = Math.min(cornerPos1.getX(), cornerPos2.getX());
         int x_radiusRangeEnd = Math.max(cornerPos1.getX(), cornerPos2.getX());
         int y_radiusRangeBegin = Math.min(cornerPos1.getY(), cornerPos2.getY());
@@ -248,8 +315,6 @@ public class Structure {
                 scannedStructure.entities.add(buildEntity);
             }
         }
-
-        Structure.CreateStructureFile(scannedStructure, fileLocation);
     }
 
     /**
@@ -346,12 +411,50 @@ public class Structure {
 
     public void setBlocks(ArrayList<BuildBlock> value) {
         this.blocks = value;
+        this.blocksWithFills = null;
+    }
+
+    public ArrayList<BuildFill> getFills() {
+        // Structure files written before fills were added don't have this field.
+        if (this.fills == null) {
+            this.fills = new ArrayList<>();
+        }
+
+        return this.fills;
+    }
+
+    public void setFills(ArrayList<BuildFill> value) {
+        this.fills = value;
+        this.blocksWithFills = null;
+    }
+
+    /**
+     * Gets every block of this structure with the fills expanded into individual blocks.
+     * The list is created once and re-used so it is only meant for read-only consumers such as the preview.
+     *
+     * @return The blocks of this structure followed by the blocks of every fill.
+     */
+    public ArrayList<BuildBlock> getBlocksWithFills() {
+        if (this.getFills().isEmpty()) {
+            return this.getBlocks();
+        }
+
+        if (this.blocksWithFills == null) {
+            this.blocksWithFills = new ArrayList<>(this.getBlocks());
+
+            for (BuildFill fill : this.getFills()) {
+                this.blocksWithFills.addAll(fill.expand());
+            }
+        }
+
+        return this.blocksWithFills;
     }
 
     public void Initialize() {
         this.name = "";
         this.clearSpace = new BuildClear();
         this.blocks = new ArrayList<>();
+        this.fills = new ArrayList<>();
     }
 
     /**
@@ -394,6 +497,9 @@ public class Structure {
         }
 
         if (!this.BeforeBuilding(configuration, world, originalPos, player)) {
+            // Keep the footprint's chunks loaded until any deferred placement for this structure is done.
+            BuildChunkTickets.requestTickets(this, world, startBlockPos, endBlockPos);
+
             try {
                 // First, clear the area where the structure will be built.
                 this.ClearSpace(configuration, world, startBlockPos, endBlockPos);
@@ -401,8 +507,11 @@ public class Structure {
                 ArrayList<Tuple<BlockState, BlockPos>> laterBlocks = new ArrayList<>();
                 boolean blockPlacedWithCobbleStoneInstead = false;
 
+                // Place the fills first; any fill which can't be placed in bulk comes back as individual blocks.
+                ArrayList<BuildBlock> blocksToPlace = this.placeFills(configuration, world, originalPos, laterBlocks);
+
                 // Now place all of the blocks.
-                for (BuildBlock block : this.getBlocks()) {
+                for (BuildBlock block : blocksToPlace) {
                     Block foundBlock = BuiltInRegistries.BLOCK.get(block.getResourceLocation());
 
                     if (foundBlock != null) {
@@ -483,13 +592,7 @@ public class Structure {
                 world.blockUpdated(pos, block);
             }
 
-            if (StructureEventHandler.structuresToBuild.containsKey(player)) {
-                StructureEventHandler.structuresToBuild.get(player).add(this);
-            } else {
-                ArrayList<Structure> structures = new ArrayList<>();
-                structures.add(this);
-                StructureEventHandler.structuresToBuild.put(player, structures);
-            }
+            StructureEventHandler.queueStructure(world, player, this);
 
         }
 
@@ -538,16 +641,87 @@ public class Structure {
 
             this.clearedBlockPos = new ArrayList<>();
 
-            for (BlockPos pos : BlockPos.betweenClosed(startBlockPos, endBlockPos)) {
-                if (this.BlockShouldBeClearedDuringConstruction(configuration, world, originalPos, pos)) {
-                    world.setBlock(pos, Blocks.AIR.defaultBlockState(), 2);
-                }
-            }
+            // Clear the volume a chunk section at a time; blocks which are already air are never visited.
+            BulkClear.clearVolume(world, startBlockPos, endBlockPos,
+                    (pos, state) -> this.BlockShouldBeClearedDuringConstruction(configuration, world, originalPos, pos));
         } else {
             this.clearedBlockPos = new ArrayList<>();
         }
     }
 
+    /**
+     * Places every fill of this structure which can be set in bulk.
+     * The state of a fill is resolved once and then set for every position of the cuboid.
+     *
+     * @param configuration The structure configuration.
+     * @param world         The current world.
+     * @param originalPos   The original position clicked on.
+     * @param laterBlocks   The blocks which are placed after everything else; fills of blocks without collision are added here.
+     * @return The blocks which still need to be placed one at a time, including the blocks of any fill which couldn't be placed in bulk.
+     */
+    protected ArrayList<BuildBlock> placeFills(StructureConfiguration configuration, Level world, BlockPos originalPos,
+                                               ArrayList<Tuple<BlockState, BlockPos>> laterBlocks) {
+        ArrayList<BuildBlock> blocksToPlace = this.getBlocks();
+        Direction structureDirection = this.getClearSpace().getShape().getDirection();
+
+        for (BuildFill fill : this.getFills()) {
+            BuildBlock block = fill.getBlock();
+            Block foundBlock = BuiltInRegistries.BLOCK.get(block.getResourceLocation());
+
+            if (foundBlock == null || !this.canBulkFill(configuration, world, block, foundBlock)) {
+                if (blocksToPlace == this.getBlocks()) {
+                    blocksToPlace = new ArrayList<>(this.getBlocks());
+                }
+
+                blocksToPlace.addAll(fill.expand());
+                continue;
+            }
+
+            BlockState fillState = BuildBlock.SetBlockState(configuration, world, originalPos, block, foundBlock, foundBlock.defaultBlockState(), this).getBlockState();
+            Block blockToPlace = fillState.getBlock();
+            boolean placeLater = (!blockToPlace.hasCollision && !(blockToPlace instanceof LiquidBlock)) || (blockToPlace instanceof CarpetBlock);
+
+            BlockPos startPos = block.getStartingPosition().getRelativePosition(originalPos, structureDirection, configuration.houseFacing);
+            BlockPos endPos = fill.getEndPosition().getRelativePosition(originalPos, structureDirection, configuration.houseFacing);
+
+            for (BlockPos pos : BlockPos.betweenClosed(startPos, endPos)) {
+                if (placeLater) {
+                    laterBlocks.add(new Tuple<>(fillState, pos.immutable()));
+                } else {
+                    world.setBlock(pos, fillState, BlockFlags.DEFAULT);
+                }
+            }
+        }
+
+        return blocksToPlace;
+    }
+
+    /**
+     * Determines if every block of a fill can be set to the same state without going through the per-block processing.
+     * Structures which handle certain blocks in {@link #CustomBlockProcessingHandled} should return false for those blocks.
+     *
+     * @param configuration The structure configuration.
+     * @param world         The current world.
+     * @param block         The build block of the fill.
+     * @param foundBlock    The block of the fill.
+     * @return True if the fill can be placed in bulk, otherwise false.
+     */
+    protected boolean canBulkFill(StructureConfiguration configuration, Level world, BuildBlock block, Block foundBlock) {
+        if (foundBlock instanceof EntityBlock || block.getSubBlock() != null || !block.getBlockStateData().equals("")) {
+            return false;
+        }
+
+        // Water and water logged blocks may be replaced with cobblestone in this world.
+        boolean isOverworld = Level.OVERWORLD.location().toString().equals(world.dimension().location().toString());
+
+        if (world.dimensionType().ultraWarm() || (!isOverworld && Prefab.serverConfiguration.allowWaterInNonOverworldDimensions)) {
+            return false;
+        }
+
+        // Glass may be re-colored.
+        return !this.hasGlassColor(configuration) || !BuiltInRegistries.BLOCK.getKey(foundBlock).getPath().contains("glass");
+    }
+
     protected Boolean CustomBlockProcessingHandled(StructureConfiguration configuration, BuildBlock block, Level world, BlockPos originalPos,
                                                    Block foundBlock, BlockState blockState, Player player) {
         return false;
@@ -0,0 +1,379 @@
+package com.wuest.prefab.structures.base;
+
+import com.wuest.prefab.Prefab;
+import com.wuest.prefab.gui.GuiLangKeys;
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.ChatFormatting;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * This class scans a structure over multiple server ticks instead of all at once.
+ * The scanned area is split into chunk sections and a bounded number of sections are scanned each tick; tile entities are
+ * captured as their section is scanned and entities are captured once all the blocks have been scanned.
+ * Blocks are read straight from each chunk section and sections which only contain air are skipped unless air is included.
+ * The structure file is written on the background I/O executor; the job finishes once the file has been written.
+ * When the results of a previous scan of the same region are supplied, sections whose content hash hasn't changed re-use
+ * their previous blocks and tile entities instead of being scanned again.
+ */
+public class StructureScanJob {
+    /**
+     * The maximum number of chunk sections a single job scans in one tick.
+     */
+    public static final int SectionsPerTick = 4;
+
+    private static final ArrayList<StructureScanJob> activeJobs = new ArrayList<>();
+
+    private final ServerPlayer player;
+    private final ServerLevel world;
+    private final BlockPos originalPos;
+    private final BlockPos minPos;
+    private final BlockPos maxPos;
+    private final String fileLocation;
+    private final boolean includeAir;
+    private final boolean excludeWater;
+    private final Consumer<StructureScanJob> onComplete;
+    private final Structure scannedStructure;
+    private final ScannedStateCache stateCache = new ScannedStateCache();
+    private final SectionScanCache previousScan;
+    private final SectionScanCache sectionCache;
+    private final ArrayList<SectionPos> sections = new ArrayList<>();
+
+    private int nextSection = 0;
+    private int lastReportedPercent = -1;
+    private int reusedSections = 0;
+    private int scannedBlocks = 0;
+    private CompletableFuture<Void> writeFuture;
+
+    /**
+     * Initializes a new instance of the {@link StructureScanJob} class.
+     *
+     * @param player       The player which requested the scan. Progress is reported to this player.
+     * @param world        The world to scan.
+     * @param originalPos  The position which all block offsets are relative to. This also identifies the scan.
+     * @param cornerPos1   One corner of the area to scan.
+     * @param cornerPos2   The opposite corner of the area to scan.
+     * @param fileLocation The file to write the scanned structure to.
+     * @param clearedSpace The cleared space of the scanned structure.
+     * @param includeAir   Determines if air blocks are added to the structure.
+     * @param excludeWater Determines if water blocks are left out of the structure.
+     * @param previousScan The results of the last scan of this region. May be null; it is ignored if the region or options changed.
+     * @param onComplete   Called on the server thread once the structure file has been written. May be null.
+     */
+    public StructureScanJob(ServerPlayer player, ServerLevel world, BlockPos originalPos, BlockPos cornerPos1, BlockPos cornerPos2, String fileLocation,
+                            BuildClear clearedSpace, boolean includeAir, boolean excludeWater, SectionScanCache previousScan,
+                            Consumer<StructureScanJob> onComplete) {
+        this.player = player;
+        this.world = world;
+        this.originalPos = originalPos.immutable();
+        this.minPos = new BlockPos(Math.min(cornerPos1.getX(), cornerPos2.getX()), Math.min(cornerPos1.getY(), cornerPos2.getY()), Math.min(cornerPos1.getZ(), cornerPos2.getZ()));
+        this.maxPos = new BlockPos(Math.max(cornerPos1.getX(), cornerPos2.getX()), Math.max(cornerPos1.getY(), cornerPos2.getY()), Math.max(cornerPos1.getZ(), cornerPos2.getZ()));
+        this.fileLocation = fileLocation;
+        this.includeAir = includeAir;
+        this.excludeWater = excludeWater;
+        this.onComplete = onComplete;
+
+        String scanKey = this.originalPos.toShortString() + "|" + this.minPos.toShortString() + "|" + this.maxPos.toShortString()
+                + "|" + fileLocation + "|" + includeAir + "|" + excludeWater;
+
+        this.sectionCache = new SectionScanCache(scanKey);
+        this.previousScan = previousScan != null && previousScan.getScanKey().equals(scanKey) ? previousScan : null;
+
+        this.scannedStructure = new Structure();
+        this.scannedStructure.setClearSpace(clearedSpace);
+
+        // Sections are scanned from the bottom up so lower blocks are always written to the file before the blocks above them.
+        for (int sectionY = SectionPos.blockToSectionCoord(this.minPos.getY()); sectionY <= SectionPos.blockToSectionCoord(this.maxPos.getY()); sectionY++) {
+            for (int sectionZ = SectionPos.blockToSectionCoord(this.minPos.getZ()); sectionZ <= SectionPos.blockToSectionCoord(this.maxPos.getZ()); sectionZ++) {
+                for (int sectionX = SectionPos.blockToSectionCoord(this.minPos.getX()); sectionX <= SectionPos.blockToSectionCoord(this.maxPos.getX()); sectionX++) {
+                    this.sections.add(SectionPos.of(sectionX, sectionY, sectionZ));
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a scan job. Only one scan can run for the same scanner at a time.
+     *
+     * @param job The job to start.
+     * @return True if the job was started, false if a scan is already running for this scanner.
+     */
+    public static boolean start(StructureScanJob job) {
+        if (StructureScanJob.getJob(job.world, job.originalPos) != null) {
+            job.sendMessage(Component.translatable(GuiLangKeys.GUI_SCAN_IN_PROGRESS).withStyle(ChatFormatting.RED), false);
+            return false;
+        }
+
+        StructureScanJob.activeJobs.add(job);
+        return true;
+    }
+
+    /**
+     * Cancels the scan running for a scanner. Nothing is written for a cancelled scan.
+     * A scan which is already writing its file can no longer be cancelled.
+     *
+     * @param world       The world the scan is running in.
+     * @param originalPos The position of the scanner.
+     * @return True if a scan was cancelled, otherwise false.
+     */
+    public static boolean cancel(ServerLevel world, BlockPos originalPos) {
+        StructureScanJob job = StructureScanJob.getJob(world, originalPos);
+
+        if (job == null || job.writeFuture != null) {
+            return false;
+        }
+
+        StructureScanJob.activeJobs.remove(job);
+        job.sendMessage(Component.translatable(GuiLangKeys.GUI_SCAN_CANCELLED).withStyle(ChatFormatting.YELLOW), false);
+        return true;
+    }
+
+    /**
+     * Advances all the active scan jobs. This is called once per server tick.
+     */
+    public static void tickJobs() {
+        Iterator<StructureScanJob> iterator = StructureScanJob.activeJobs.iterator();
+
+        while (iterator.hasNext()) {
+            StructureScanJob job = iterator.next();
+
+            try {
+                if (job.tick()) {
+                    iterator.remove();
+                }
+            } catch (Exception ex) {
+                Prefab.logger.error("Unable to scan structure [" + job.fileLocation + "].", ex);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all the active scan jobs. This is used when the server stops.
+     */
+    public static void clear() {
+        StructureScanJob.activeJobs.clear();
+    }
+
+    /**
+     * Gets the per-section results of this scan so the next scan of the same region can re-use them.
+     *
+     * @return The section cache built by this scan.
+     */
+    public SectionScanCache getSectionCache() {
+        return this.sectionCache;
+    }
+
+    private static StructureScanJob getJob(ServerLevel world, BlockPos originalPos) {
+        for (StructureScanJob job : StructureScanJob.activeJobs) {
+            if (job.world == world && job.originalPos.equals(originalPos)) {
+                return job;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Scans the next group of sections.
+     *
+     * @return True when the job has finished, otherwise false.
+     */
+    private boolean tick() {
+        if (this.writeFuture != null) {
+            return this.checkWriteFinished();
+        }
+
+        int lastSection = Math.min(this.nextSection + StructureScanJob.SectionsPerTick, this.sections.size());
+
+        for (; this.nextSection < lastSection; this.nextSection++) {
+            this.scanSection(this.sections.get(this.nextSection));
+        }
+
+        if (this.nextSection < this.sections.size()) {
+            int percent = this.nextSection * 100 / this.sections.size();
+
+            if (percent != this.lastReportedPercent) {
+                this.lastReportedPercent = percent;
+                this.sendMessage(Component.translatable(GuiLangKeys.GUI_SCAN_PROGRESS, percent), true);
+            }
+
+            return false;
+        }
+
+        Structure.scanEntities(this.scannedStructure, this.world, this.originalPos, this.minPos, this.maxPos);
+
+        this.scannedBlocks = this.scannedStructure.getBlocks().size();
+        FillEncoder.encode(this.scannedStructure);
+
+        // Nothing touches the scanned structure after this point so it is safe to serialize it on another thread.
+        this.writeFuture = Structure.CreateStructureFileAsync(this.scannedStructure, this.fileLocation);
+        return false;
+    }
+
+    private boolean checkWriteFinished() {
+        if (!this.writeFuture.isDone()) {
+            return false;
+        }
+
+        try {
+            this.writeFuture.join();
+        } catch (Exception ex) {
+            Prefab.logger.error("Unable to write structure file [" + this.fileLocation + "].", ex);
+            this.sendMessage(Component.translatable(GuiLangKeys.GUI_SCAN_FAILED).withStyle(ChatFormatting.RED), false);
+            return true;
+        }
+
+        if (this.onComplete != null) {
+            this.onComplete.accept(this);
+        }
+
+        if (this.previousScan != null) {
+            this.sendMessage(Component.translatable(GuiLangKeys.GUI_SCAN_COMPLETE_RESCAN, this.scannedBlocks, this.reusedSections,
+                    this.sections.size()).withStyle(ChatFormatting.GREEN), false);
+        } else {
+            this.sendMessage(Component.translatable(GuiLangKeys.GUI_SCAN_COMPLETE, this.scannedBlocks).withStyle(ChatFormatting.GREEN), false);
+        }
+
+        return true;
+    }
+
+    private void scanSection(SectionPos sectionPos) {
+        if (sectionPos.y() < this.world.getMinSection() || sectionPos.y() >= this.world.getMaxSection()) {
+            // Outside the build height there is nothing but air.
+            if (this.includeAir) {
+                this.scanSectionFromWorld(sectionPos);
+            }
+
+            return;
+        }
+
+        LevelChunk chunk = this.world.getChunk(sectionPos.x(), sectionPos.z());
+        LevelChunkSection section = chunk.getSection(chunk.getSectionIndexFromSectionY(sectionPos.y()));
+
+        if (section.hasOnlyAir() && !this.includeAir) {
+            return;
+        }
+
+        int minX = Math.max(this.minPos.getX(), sectionPos.minBlockX());
+        int minY = Math.max(this.minPos.getY(), sectionPos.minBlockY());
+        int minZ = Math.max(this.minPos.getZ(), sectionPos.minBlockZ());
+        int maxX = Math.min(this.maxPos.getX(), sectionPos.maxBlockX());
+        int maxY = Math.min(this.maxPos.getY(), sectionPos.maxBlockY());
+        int maxZ = Math.min(this.maxPos.getZ(), sectionPos.maxBlockZ());
+
+        long sectionKey = sectionPos.asLong();
+        long hash = this.hashSection(section, minX, minY, minZ, maxX, maxY, maxZ);
+        SectionScanCache.SectionScan previousSection = this.previousScan != null ? this.previousScan.get(sectionKey) : null;
+
+        if (previousSection != null && previousSection.hash == hash) {
+            // Nothing changed in this section since the last scan.
+            this.scannedStructure.getBlocks().addAll(previousSection.blocks);
+            this.scannedStructure.tileEntities.addAll(previousSection.tileEntities);
+            this.sectionCache.put(sectionKey, previousSection);
+            this.reusedSections++;
+            return;
+        }
+
+        int firstBlock = this.scannedStructure.getBlocks().size();
+        int firstTileEntity = this.scannedStructure.tileEntities.size();
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    BlockState state = section.getBlockState(x & 15, y & 15, z & 15);
+
+                    if (state.isAir() && !this.includeAir) {
+                        continue;
+                    }
+
+                    Structure.scanPosition(this.scannedStructure, this.world, new BlockPos(x, y, z), state, this.originalPos, this.includeAir, this.excludeWater,
+                            this.stateCache);
+                }
+            }
+        }
+
+        this.sectionCache.put(sectionKey, new SectionScanCache.SectionScan(
+                hash,
+                new ArrayList<>(this.scannedStructure.getBlocks().subList(firstBlock, this.scannedStructure.getBlocks().size())),
+                new ArrayList<>(this.scannedStructure.tileEntities.subList(firstTileEntity, this.scannedStructure.tileEntities.size()))));
+    }
+
+    /**
+     * Creates a content hash of the scanned part of a section from its block states and tile entity data.
+     * The hash also covers a single block border around the scanned part since doors and beds capture their other half
+     * from the neighboring blocks.
+     * Every value is mixed together with its index before it's folded into the hash, so small differences between state
+     * ids at nearby positions can't cancel each other out.
+     */
+    private long hashSection(LevelChunkSection section, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        long hash = 1;
+        int index = 0;
+        BlockPos.MutableBlockPos currentPos = new BlockPos.MutableBlockPos();
+
+        for (int y = minY - 1; y <= maxY + 1; y++) {
+            for (int z = minZ - 1; z <= maxZ + 1; z++) {
+                for (int x = minX - 1; x <= maxX + 1; x++) {
+                    boolean insideSection = x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+                    BlockState state = insideSection
+                            ? section.getBlockState(x & 15, y & 15, z & 15)
+                            : this.world.getBlockState(currentPos.set(x, y, z));
+
+                    hash = StructureScanJob.mixHash(hash, index++, Block.getId(state));
+
+                    if (insideSection && state.hasBlockEntity()) {
+                        BlockEntity blockEntity = this.world.getBlockEntity(currentPos.set(x, y, z));
+
+                        if (blockEntity != null) {
+                            hash = StructureScanJob.mixHash(hash, index++, blockEntity.saveWithoutMetadata(this.world.registryAccess()).hashCode());
+                        }
+                    }
+                }
+            }
+        }
+
+        return hash;
+    }
+
+    private static long mixHash(long hash, int index, int value) {
+        return HashCommon.mix(hash + HashCommon.mix(((long) index << 32) | (value & 0xFFFFFFFFL)));
+    }
+
+    private void scanSectionFromWorld(SectionPos sectionPos) {
+        int minX = Math.max(this.minPos.getX(), sectionPos.minBlockX());
+        int minY = Math.max(this.minPos.getY(), sectionPos.minBlockY());
+        int minZ = Math.max(this.minPos.getZ(), sectionPos.minBlockZ());
+        int maxX = Math.min(this.maxPos.getX(), sectionPos.maxBlockX());
+        int maxY = Math.min(this.maxPos.getY(), sectionPos.maxBlockY());
+        int maxZ = Math.min(this.maxPos.getZ(), sectionPos.maxBlockZ());
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    BlockPos currentPos = new BlockPos(x, y, z);
+                    Structure.scanPosition(this.scannedStructure, this.world, currentPos, this.world.getBlockState(currentPos), this.originalPos, this.includeAir,
+                            this.excludeWater, this.stateCache);
+                }
+            }
+        }
+    }
+
+    private void sendMessage(Component message, boolean actionBar) {
+        if (this.player != null && !this.player.hasDisconnected()) {
+            this.player.displayClientMessage(message, actionBar);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.wuest.prefab.structures.events;
+
+import com.wuest.prefab.Prefab;
+import com.wuest.prefab.gui.GuiLangKeys;
+import com.wuest.prefab.structures.base.Structure;
+import com.wuest.prefab.structures.config.HouseConfiguration;
+import com.wuest.prefab.structures.config.HouseImprovedConfiguration;
+import com.wuest.prefab.structures.config.StructureConfiguration;
+import com.wuest.prefab.structures.items.StructureItem;
+import net.minecraft.ChatFormatting;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.Item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * This class sits in front of {@link StructureConfiguration#BuildStructure(Player, ServerLevel)} and limits how many
+ * structures can be building at the same time, both per player and server-wide.
+ * Requests over the limit wait in a priority queue (admins and starter houses first) and are rejected when the queue is full.
+ * The structure item is only taken once a build starts, so a queued build is dropped when the player no longer holds the
+ * item it was requested with or has moved to another level.
+ */
+public final class BuildAdmissionController {
+    /**
+     * The permission level which is considered an admin for queue priority.
+     */
+    private static final int AdminPermissionLevel = 2;
+
+    /**
+     * The order in which queued builds start: higher priority first, then in the order they were submitted.
+     */
+    private static final Comparator<PendingBuild> BuildOrder = Comparator.comparingInt((PendingBuild build) -> build.priority).reversed()
+            .thenComparingLong(build -> build.sequence);
+
+    private static final PriorityQueue<PendingBuild> pendingBuilds = new PriorityQueue<>(BuildAdmissionController.BuildOrder);
+
+    private static long nextSequence = 0;
+
+    private BuildAdmissionController() {
+    }
+
+    /**
+     * Submits a structure build request. The build starts immediately if there is capacity, otherwise it is queued or rejected.
+     *
+     * @param player        The player which requested the build.
+     * @param world         The level the build will occur in.
+     * @param configuration The structure configuration sent by the player.
+     */
+    public static void submit(ServerPlayer player, ServerLevel world, StructureConfiguration configuration) {
+        Item structureItem = BuildAdmissionController.getStructureItemInHand(player);
+
+        if (structureItem == null) {
+            // Structures are only built from a held structure item; this request can't pay for its structure.
+            return;
+        }
+
+        PendingBuild build = new PendingBuild(player, world, structureItem, configuration,
+                BuildAdmissionController.getPriority(player, configuration), BuildAdmissionController.nextSequence++);
+
+        if (BuildAdmissionController.pendingBuilds.isEmpty() && BuildAdmissionController.hasCapacity(player)) {
+            build.start();
+            return;
+        }
+
+        if (BuildAdmissionController.pendingBuilds.size() >= Prefab.serverConfiguration.maxQueuedBuilds) {
+            Component message = Component.translatable(GuiLangKeys.GUI_STRUCTURE_QUEUE_FULL).withStyle(ChatFormatting.RED);
+            player.sendSystemMessage(message);
+            return;
+        }
+
+        BuildAdmissionController.pendingBuilds.add(build);
+
+        Component message = Component.translatable(GuiLangKeys.GUI_STRUCTURE_QUEUED, BuildAdmissionController.getQueuePosition(build))
+                .withStyle(ChatFormatting.YELLOW);
+        player.sendSystemMessage(message);
+    }
+
+    /**
+     * Starts as many queued builds as the current capacity allows. This is called once per server tick.
+     */
+    public static void processPendingBuilds() {
+        if (BuildAdmissionController.pendingBuilds.isEmpty()) {
+            return;
+        }
+
+        ArrayList<PendingBuild> blockedBuilds = new ArrayList<>();
+
+        while (!BuildAdmissionController.pendingBuilds.isEmpty()
+                && BuildAdmissionController.getActiveBuildCount() < Prefab.serverConfiguration.maxConcurrentBuildsPerServer) {
+            PendingBuild build = BuildAdmissionController.pendingBuilds.poll();
+
+            if (build.player.hasDisconnected()) {
+                // This player left before their structure could be built; drop the request.
+                continue;
+            }
+
+            if (!build.canStart()) {
+                // The item which pays for this structure is gone or the player is in another level now.
+                Component message = Component.translatable(GuiLangKeys.GUI_STRUCTURE_QUEUE_DROPPED).withStyle(ChatFormatting.RED);
+                build.player.sendSystemMessage(message);
+                continue;
+            }
+
+            if (BuildAdmissionController.getActiveBuildCount(build.player.getUUID()) >= Prefab.serverConfiguration.maxConcurrentBuildsPerPlayer) {
+                // This player is still at their limit; let the requests behind it go first.
+                blockedBuilds.add(build);
+                continue;
+            }
+
+            build.start();
+        }
+
+        BuildAdmissionController.pendingBuilds.addAll(blockedBuilds);
+    }
+
+    /**
+     * Gets the number of build requests waiting for a free build slot.
+     *
+     * @return The current queue depth.
+     */
+    public static int getQueueDepth() {
+        return BuildAdmissionController.pendingBuilds.size();
+    }
+
+    /**
+     * Gets the number of structures currently building across all levels.
+     *
+     * @return The number of active builds.
+     */
+    public static int getActiveBuildCount() {
+        int count = 0;
+
+        for (LevelBuildQueue queue : StructureEventHandler.buildQueues.values()) {
+            for (ArrayList<Structure> structures : queue.structuresToBuild.values()) {
+                count += structures.size();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the number of structures currently building across all levels for a single player.
+     *
+     * @param playerId The player's unique identifier.
+     * @return The number of active builds for this player.
+     */
+    public static int getActiveBuildCount(UUID playerId) {
+        int count = 0;
+
+        for (LevelBuildQueue queue : StructureEventHandler.buildQueues.values()) {
+            for (Map.Entry<Player, ArrayList<Structure>> entry : queue.structuresToBuild.entrySet()) {
+                if (entry.getKey().getUUID().equals(playerId)) {
+                    count += entry.getValue().size();
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Removes all the pending builds. This is used when the server stops.
+     */
+    public static void clear() {
+        BuildAdmissionController.pendingBuilds.clear();
+        BuildAdmissionController.nextSequence = 0;
+    }
+
+    /**
+     * Gets where a queued build is in the start order, counting from 1.
+     */
+    private static int getQueuePosition(PendingBuild build) {
+        int position = 1;
+
+        for (PendingBuild other : BuildAdmissionController.pendingBuilds) {
+            if (BuildAdmissionController.BuildOrder.compare(other, build) < 0) {
+                position++;
+            }
+        }
+
+        return position;
+    }
+
+    private static boolean hasCapacity(ServerPlayer player) {
+        return BuildAdmissionController.getActiveBuildCount() < Prefab.serverConfiguration.maxConcurrentBuildsPerServer
+                && BuildAdmissionController.getActiveBuildCount(player.getUUID()) < Prefab.serverConfiguration.maxConcurrentBuildsPerPlayer;
+    }
+
+    private static Item getStructureItemInHand(ServerPlayer player) {
+        if (player.getMainHandItem().getItem() instanceof StructureItem) {
+            return player.getMainHandItem().getItem();
+        }
+
+        if (player.getOffhandItem().getItem() instanceof StructureItem) {
+            return player.getOffhandItem().getItem();
+        }
+
+        return null;
+    }
+
+    private static int getPriority(ServerPlayer player, StructureConfiguration configuration) {
+        int priority = 0;
+
+        if (player.hasPermissions(BuildAdmissionController.AdminPermissionLevel)) {
+            priority += 2;
+        }
+
+        if (configuration instanceof HouseConfiguration || configuration instanceof HouseImprovedConfiguration) {
+            priority += 1;
+        }
+
+        return priority;
+    }
+
+    private static class PendingBuild {
+        private final ServerPlayer player;
+        private final ServerLevel world;
+        private final Item structureItem;
+        private final StructureConfiguration configuration;
+        private final int priority;
+        private final long sequence;
+
+        private PendingBuild(ServerPlayer player, ServerLevel world, Item structureItem, StructureConfiguration configuration, int priority, long sequence) {
+            this.player = player;
+            this.world = world;
+            this.structureItem = structureItem;
+            this.configuration = configuration;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Determines if the player can still pay for this build where it was requested.
+         * The structure takes its item from the main hand or off-hand when it's built, so one of them must still hold it.
+         */
+        private boolean canStart() {
+            return this.player.serverLevel() == this.world
+                    && (this.player.getMainHandItem().getItem() == this.structureItem
+                    || this.player.getOffhandItem().getItem() == this.structureItem);
+        }
+
+        private void start() {
+            this.configuration.BuildStructure(this.player, this.world);
+        }
+    }
+}
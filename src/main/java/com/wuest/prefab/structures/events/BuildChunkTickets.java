@@ -0,0 +1,105 @@
+package com.wuest.prefab.structures.events;
+
+import com.wuest.prefab.Prefab;
+import com.wuest.prefab.structures.base.Structure;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * This class manages the chunk load tickets for structures which are being built over multiple ticks.
+ * Tickets keep the chunks of the build footprint loaded even if the player walks away mid-build.
+ * The chunks are loaded by the chunk system in the background; the build queue simply waits until they are FULL.
+ * Only the deferred placement waits for the chunks: clearing the space and the first placement pass still run in the tick
+ * the build is requested, next to the player who requested it, so any chunk of the footprint which isn't loaded yet is
+ * loaded synchronously at that point.
+ */
+public final class BuildChunkTickets {
+    /**
+     * The ticket type used to keep structure chunks loaded.
+     */
+    public static final TicketType<ChunkPos> BUILD_TICKET = TicketType.create(Prefab.MODID + ":structure_build", Comparator.comparingLong(ChunkPos::toLong));
+
+    /**
+     * A ticket distance of 0 loads the chunk to FULL status without making it ticking.
+     */
+    private static final int TicketDistance = 0;
+
+    private BuildChunkTickets() {
+    }
+
+    /**
+     * Requests tickets for every chunk covered by the build footprint.
+     *
+     * @param structure The structure which is being built.
+     * @param world     The level which the structure is being built in.
+     * @param startPos  One corner of the build footprint.
+     * @param endPos    The opposite corner of the build footprint.
+     */
+    public static void requestTickets(Structure structure, ServerLevel world, BlockPos startPos, BlockPos endPos) {
+        // Make sure that any tickets from a previous build of this instance are released first.
+        BuildChunkTickets.releaseTickets(structure);
+
+        ServerChunkCache chunkSource = world.getChunkSource();
+        int minChunkX = Math.min(startPos.getX(), endPos.getX()) >> 4;
+        int maxChunkX = Math.max(startPos.getX(), endPos.getX()) >> 4;
+        int minChunkZ = Math.min(startPos.getZ(), endPos.getZ()) >> 4;
+        int maxChunkZ = Math.max(startPos.getZ(), endPos.getZ()) >> 4;
+
+        structure.ticketLevel = world;
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                ChunkPos chunkPos = new ChunkPos(chunkX, chunkZ);
+                chunkSource.addRegionTicket(BuildChunkTickets.BUILD_TICKET, chunkPos, BuildChunkTickets.TicketDistance, chunkPos);
+                structure.ticketedChunks.add(chunkPos);
+            }
+        }
+    }
+
+    /**
+     * Determines if all the ticketed chunks for this structure are loaded to FULL status.
+     * Structures without any tickets fall back to checking the chunk of the original position.
+     *
+     * @param structure The structure to check.
+     * @return True if placement can occur without forcing a synchronous chunk load, otherwise false.
+     */
+    public static boolean chunksReady(Structure structure) {
+        if (structure.ticketedChunks.isEmpty() || structure.ticketLevel == null) {
+            return structure.world != null && structure.originalPos != null && structure.world.isLoaded(structure.originalPos);
+        }
+
+        ServerChunkCache chunkSource = structure.ticketLevel.getChunkSource();
+
+        for (ChunkPos chunkPos : structure.ticketedChunks) {
+            if (!chunkSource.hasChunk(chunkPos.x, chunkPos.z)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Releases all tickets held for this structure.
+     *
+     * @param structure The structure which has finished building.
+     */
+    public static void releaseTickets(Structure structure) {
+        if (structure.ticketLevel != null) {
+            ServerChunkCache chunkSource = structure.ticketLevel.getChunkSource();
+
+            for (ChunkPos chunkPos : structure.ticketedChunks) {
+                chunkSource.removeRegionTicket(BuildChunkTickets.BUILD_TICKET, chunkPos, BuildChunkTickets.TicketDistance, chunkPos);
+            }
+        }
+
+        structure.ticketedChunks = new ArrayList<>();
+        structure.ticketLevel = null;
+    }
+}
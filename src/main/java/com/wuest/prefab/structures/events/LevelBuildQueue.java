@@ -0,0 +1,133 @@
+package com.wuest.prefab.structures.events;
+
+import com.wuest.prefab.Tuple;
+import com.wuest.prefab.structures.base.BuildEntity;
+import com.wuest.prefab.structures.base.Structure;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.player.Player;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class holds the deferred building work for a single level (dimension).
+ * Each level gets its own queue and block budget so that builds in one dimension don't compete with builds in another.
+ */
+public class LevelBuildQueue {
+    /**
+     * The maximum number of blocks a single structure can place in one tick.
+     */
+    public static final int BlocksPerStructure = 100;
+
+    /**
+     * The default maximum number of blocks all structures in a level can place in one tick.
+     */
+    public static final int DefaultBlockBudget = 1000;
+
+    /**
+     * The level which this queue builds in.
+     */
+    public final ServerLevel level;
+
+    /**
+     * Contains the structures to build in this level and for whom.
+     */
+    public final LinkedHashMap<Player, ArrayList<Structure>> structuresToBuild = new LinkedHashMap<>();
+
+    /**
+     * Contains the entities to generate for completed structures in this level.
+     */
+    public final ArrayList<Tuple<Structure, BuildEntity>> entitiesToGenerate = new ArrayList<>();
+
+    public int ticksSinceLastEntitiesGenerated = 0;
+
+    /**
+     * The maximum number of blocks which can be placed in this level each tick.
+     */
+    public int blockBudget = LevelBuildQueue.DefaultBlockBudget;
+
+    /**
+     * The time (in nanoseconds) spent processing this queue during the last tick.
+     */
+    public long lastTickNanos = 0;
+
+    /**
+     * The total time (in nanoseconds) spent processing this queue.
+     */
+    public long totalTickNanos = 0;
+
+    /**
+     * The total number of blocks placed by this queue.
+     */
+    public long blocksPlaced = 0;
+
+    public LevelBuildQueue(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Adds a structure to this queue for the specified player.
+     *
+     * @param player    The player which requested the structure.
+     * @param structure The structure to build.
+     */
+    public void addStructure(Player player, Structure structure) {
+        this.structuresToBuild.computeIfAbsent(player, key -> new ArrayList<>()).add(structure);
+    }
+
+    /**
+     * Moves a player's structures to the end of the queue so other players get the budget first on the next tick.
+     *
+     * @param player The player to move to the back of the queue.
+     */
+    public void moveToBack(Player player) {
+        ArrayList<Structure> structures = this.structuresToBuild.remove(player);
+
+        if (structures != null) {
+            this.structuresToBuild.put(player, structures);
+        }
+    }
+
+    /**
+     * Determines if this structure's target chunks are currently loaded.
+     *
+     * @param structure The structure to check.
+     * @return True if all the chunks of the structure's footprint are loaded to FULL status, otherwise false.
+     */
+    public boolean isStructureLoaded(Structure structure) {
+        return BuildChunkTickets.chunksReady(structure);
+    }
+
+    /**
+     * Determines if any structure in this queue targets a loaded chunk.
+     *
+     * @return True if at least one queued structure (or pending entity) targets a loaded chunk, otherwise false.
+     */
+    public boolean hasLoadedTargets() {
+        for (Map.Entry<Player, ArrayList<Structure>> entry : this.structuresToBuild.entrySet()) {
+            for (Structure structure : entry.getValue()) {
+                if (this.isStructureLoaded(structure)) {
+                    return true;
+                }
+            }
+        }
+
+        for (Tuple<Structure, BuildEntity> entityRecord : this.entitiesToGenerate) {
+            if (this.isStructureLoaded(entityRecord.getFirst())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines if there is no more work in this queue.
+     *
+     * @return True if there are no more structures or entities to process.
+     */
+    public boolean isEmpty() {
+        return this.structuresToBuild.isEmpty() && this.entitiesToGenerate.isEmpty();
+    }
+}
@@ -1,6 +1,7 @@
 package com.wuest.prefab.structures.events;
 
 import com.wuest.prefab.structures.render.StructureRenderHandler;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
 import net.fabricmc.fabric.api.event.player.UseBlockCallback;
 import net.minecraft.client.Minecraft;
 import net.minecraft.world.InteractionResult;
@@ -13,6 +14,7 @@ public final class StructureClientEventHandler {
     public static void registerStructureClientSideEvents() {
 
         StructureClientEventHandler.registerPlayerUseItemEvent();
+        StructureClientEventHandler.registerChunkLoadEvent();
     }
 
     public static void registerPlayerUseItemEvent() {
@@ -33,4 +35,11 @@ public final class StructureClientEventHandler {
             return InteractionResult.PASS;
         });
     }
+
+    /**
+     * The client chunk load event. This is used to update the parts of the structure preview which are in a newly loaded chunk.
+     */
+    public static void registerChunkLoadEvent() {
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) -> StructureRenderHandler.onClientChunkLoaded(world, chunk.getPos()));
+    }
 }
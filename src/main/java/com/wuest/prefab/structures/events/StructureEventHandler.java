@@ -11,10 +11,13 @@ import com.wuest.prefab.network.message.TagMessage;
 import com.wuest.prefab.structures.base.BuildBlock;
 import com.wuest.prefab.structures.base.BuildEntity;
 import com.wuest.prefab.structures.base.BuildingMethods;
+import com.wuest.prefab.structures.base.BulkClear;
 import com.wuest.prefab.structures.base.Structure;
+import com.wuest.prefab.structures.base.StructureScanJob;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
@@ -50,22 +53,22 @@ import java.util.*;
  */
 public final class StructureEventHandler {
     /**
-     * Contains a hashmap for the structures to build and for whom.
+     * Contains the deferred building work for each level.
      */
-    public static HashMap<Player, ArrayList<Structure>> structuresToBuild = new HashMap<>();
-
-    public static ArrayList<Tuple<Structure, BuildEntity>> entitiesToGenerate = new ArrayList<>();
-
-    public static int ticksSinceLastEntitiesGenerated = 0;
+    public static HashMap<ServerLevel, LevelBuildQueue> buildQueues = new HashMap<>();
 
     public static void registerStructureServerSideEvents() {
         StructureEventHandler.playerJoinedServer();
 
+        StructureEventHandler.playerConnectionChanged();
+
         StructureEventHandler.serverStarted();
 
         StructureEventHandler.serverStopped();
 
         StructureEventHandler.serverTick();
+
+        StructureEventHandler.worldTick();
     }
 
     private static void playerJoinedServer() {
@@ -76,9 +79,27 @@ public final class StructureEventHandler {
         });
     }
 
+    private static void playerConnectionChanged() {
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
+            EntityPlayerConfiguration.playerTagData.onPlayerJoined(handler.getPlayer().getUUID());
+        });
+
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            EntityPlayerConfiguration.playerTagData.onPlayerLeft(handler.getPlayer().getUUID());
+        });
+    }
+
     private static void serverTick() {
         ServerTickEvents.END_SERVER_TICK.register((server) -> {
-            StructureEventHandler.onServerTick();
+            BuildAdmissionController.processPendingBuilds();
+            EntityPlayerConfiguration.playerTagData.releaseLeftPlayers();
+            StructureScanJob.tickJobs();
+        });
+    }
+
+    private static void worldTick() {
+        ServerTickEvents.END_WORLD_TICK.register((world) -> {
+            StructureEventHandler.onWorldTick(world);
         });
     }
 
@@ -90,7 +111,11 @@ public final class StructureEventHandler {
 
     private static void serverStopped() {
         ServerLifecycleEvents.SERVER_STOPPED.register((server) -> {
+            Prefab.logger.debug("Player data cache hit rate: {}", EntityPlayerConfiguration.playerTagData.getHitRate());
             EntityPlayerConfiguration.playerTagData.clear();
+            StructureEventHandler.buildQueues.clear();
+            BuildAdmissionController.clear();
+            StructureScanJob.clear();
         });
     }
 
@@ -140,81 +165,156 @@ public final class StructureEventHandler {
     }
 
     /**
-     * This event is primarily used to build 100 blocks for any queued structures for all players.
+     * Adds a structure to the build queue of the level it is being built in.
+     *
+     * @param world     The level the structure is being built in.
+     * @param player    The player which requested the structure.
+     * @param structure The structure to build.
      */
-    public static void onServerTick() {
+    public static void queueStructure(ServerLevel world, Player player, Structure structure) {
+        StructureEventHandler.buildQueues.computeIfAbsent(world, LevelBuildQueue::new).addStructure(player, structure);
+    }
+
+    /**
+     * This event is primarily used to build the queued structures for all players in a single level.
+     * Each level has its own block budget; levels without any loaded target chunks are skipped.
+     *
+     * @param world The level which just finished ticking.
+     */
+    public static void onWorldTick(ServerLevel world) {
+        LevelBuildQueue queue = StructureEventHandler.buildQueues.get(world);
+
+        if (queue == null) {
+            return;
+        }
+
+        if (queue.isEmpty()) {
+            StructureEventHandler.buildQueues.remove(world);
+            return;
+        }
+
+        if (!queue.hasLoadedTargets()) {
+            // Nothing in this level can be built right now; wait until the chunks are loaded again.
+            return;
+        }
+
+        long startTime = System.nanoTime();
         ArrayList<Player> playersToRemove = new ArrayList<Player>();
+        ArrayList<Player> playersToMoveBack = new ArrayList<Player>();
+        int remainingBudget = queue.blockBudget;
 
-        StructureEventHandler.ticksSinceLastEntitiesGenerated++;
+        queue.ticksSinceLastEntitiesGenerated++;
 
-        if (StructureEventHandler.entitiesToGenerate.size() > 0) {
-            StructureEventHandler.ticksSinceLastEntitiesGenerated++;
+        if (queue.entitiesToGenerate.size() > 0) {
+            queue.ticksSinceLastEntitiesGenerated++;
 
-            if (StructureEventHandler.ticksSinceLastEntitiesGenerated > 40) {
+            if (queue.ticksSinceLastEntitiesGenerated > 40) {
                 // Process any entities.
-                StructureEventHandler.processStructureEntities();
+                StructureEventHandler.processStructureEntities(queue);
 
-                StructureEventHandler.ticksSinceLastEntitiesGenerated = 0;
+                queue.ticksSinceLastEntitiesGenerated = 0;
             }
         }
 
-        if (StructureEventHandler.structuresToBuild.size() > 0) {
-            for (Map.Entry<Player, ArrayList<Structure>> entry : StructureEventHandler.structuresToBuild.entrySet()) {
-                ArrayList<Structure> structuresToRemove = new ArrayList<>();
-
-                // Build the first 100 blocks of each structure for this player.
-                for (Structure structure : entry.getValue()) {
-                    if (!structure.entitiesRemoved) {
-                        // Go through each block and find any entities there. If there are any; kill them if they aren't players.
-                        // If there is a player there...they will probably die anyways.....
-                        for (BlockPos clearedPos : structure.clearedBlockPos) {
-                            AABB axisPos = Shapes.block().bounds().move(clearedPos);
-
-                            List<Entity> list = structure.world.getEntities(null, axisPos);
-
-                            if (!list.isEmpty()) {
-                                for (Entity entity : list) {
-                                    // Don't kill living entities.
-                                    if (!(entity instanceof LivingEntity)) {
-                                        if (entity instanceof HangingEntity) {
-                                            structure.BeforeHangingEntityRemoved((HangingEntity) entity);
-                                        }
-
-                                        entity.remove(Entity.RemovalReason.DISCARDED);
+        for (Map.Entry<Player, ArrayList<Structure>> entry : queue.structuresToBuild.entrySet()) {
+            if (remainingBudget <= 0) {
+                break;
+            }
+
+            ArrayList<Structure> structuresToRemove = new ArrayList<>();
+
+            // Build the first blocks of each structure for this player.
+            for (Structure structure : entry.getValue()) {
+                if (remainingBudget <= 0) {
+                    break;
+                }
+
+                if (!queue.isStructureLoaded(structure)) {
+                    continue;
+                }
+
+                if (!structure.entitiesRemoved) {
+                    // Go through each block and find any entities there. If there are any; kill them if they aren't players.
+                    // If there is a player there...they will probably die anyways.....
+                    for (BlockPos clearedPos : structure.clearedBlockPos) {
+                        AABB axisPos = Shapes.block().bounds().move(clearedPos);
+
+                        List<Entity> list = structure.world.getEntities(null, axisPos);
+
+                        if (!list.isEmpty()) {
+                            for (Entity entity : list) {
+                                // Don't kill living entities.
+                                if (!(entity instanceof LivingEntity)) {
+                                    if (entity instanceof HangingEntity) {
+                                        structure.BeforeHangingEntityRemoved((HangingEntity) entity);
                                     }
+
+                                    entity.remove(Entity.RemovalReason.DISCARDED);
                                 }
                             }
                         }
-
-                        structure.entitiesRemoved = true;
                     }
 
-                    if (structure.airBlocks.size() > 0) {
-                        structure.hasAirBlocks = true;
-                    }
+                    structure.entitiesRemoved = true;
+                }
+
+                if (structure.airBlocks.size() > 0) {
+                    structure.hasAirBlocks = true;
+                }
+
+                int structureBudget = Math.min(LevelBuildQueue.BlocksPerStructure, remainingBudget);
+                int blocksUsed = 0;
 
-                    for (int i = 0; i < 100; i++) {
-                        i = StructureEventHandler.setBlock(i, structure, structuresToRemove);
+                while (blocksUsed < structureBudget) {
+                    int result = StructureEventHandler.setBlock(blocksUsed, structure, structuresToRemove);
+
+                    if (result == 999) {
+                        // The structure is finished; only the blocks placed before this count against the budget.
+                        break;
                     }
 
-                    // After building the blocks for this tick, find waterlogged blocks and remove them.
-                    StructureEventHandler.removeWaterLogging(structure);
+                    // Clearing a block which is already air returns one less so it doesn't use up the budget.
+                    blocksUsed = result + 1;
                 }
 
-                // Update the list of structures to remove this structure since it's done building.
-                StructureEventHandler.removeStructuresFromList(structuresToRemove, entry);
+                remainingBudget -= blocksUsed;
+                queue.blocksPlaced += blocksUsed;
 
-                if (entry.getValue().size() == 0) {
-                    playersToRemove.add(entry.getKey());
-                }
+                // After building the blocks for this tick, find waterlogged blocks and remove them.
+                StructureEventHandler.removeWaterLogging(structure);
+            }
+
+            // Update the list of structures to remove this structure since it's done building.
+            StructureEventHandler.removeStructuresFromList(queue, structuresToRemove, entry);
+
+            if (entry.getValue().size() == 0) {
+                playersToRemove.add(entry.getKey());
+            } else {
+                playersToMoveBack.add(entry.getKey());
             }
         }
 
         // Remove each player that has their structure's built.
         for (Player player : playersToRemove) {
-            StructureEventHandler.structuresToBuild.remove(player);
+            queue.structuresToBuild.remove(player);
         }
 
+        if (remainingBudget <= 0) {
+            // The budget ran out this tick; let the players which didn't get to build go first next tick.
+            for (Player player : playersToMoveBack) {
+                queue.moveToBack(player);
+            }
+        }
+
+        queue.lastTickNanos = System.nanoTime() - startTime;
+        queue.totalTickNanos += queue.lastTickNanos;
+
+        if (queue.isEmpty()) {
+            Prefab.logger.debug("Finished building queue for [{}]. Blocks placed: {}, time spent: {}ms.",
+                    world.dimension().location(), queue.blocksPlaced, queue.totalTickNanos / 1_000_000);
+
+            StructureEventHandler.buildQueues.remove(world);
+        }
     }
 
     private static int setBlock(int i, Structure structure, ArrayList<Structure> structuresToRemove) {
@@ -239,23 +339,7 @@ public final class StructureEventHandler {
                     Block foundBlock = foundState.getBlock();
 
                     // Check if this block is one that is attached to a facing, if it is, remove it first.
-                    if (foundBlock instanceof TorchBlock
-                            || foundBlock instanceof SignBlock
-                            || foundBlock instanceof LeverBlock
-                            || foundBlock instanceof ButtonBlock
-                            || foundBlock instanceof BedBlock
-                            || foundBlock instanceof CarpetBlock
-                            || foundBlock instanceof FlowerPotBlock
-                            || foundBlock instanceof SugarCaneBlock
-                            || foundBlock instanceof BasePressurePlateBlock
-                            || foundBlock instanceof DoorBlock
-                            || foundBlock instanceof LadderBlock
-                            || foundBlock instanceof VineBlock
-                            || foundBlock instanceof RedStoneWireBlock
-                            || foundBlock instanceof DiodeBlock
-                            || foundBlock instanceof AbstractBannerBlock
-                            || foundBlock instanceof LanternBlock
-                            || foundBlock instanceof BaseRailBlock) {
+                    if (BulkClear.isAttachable(foundState)) {
                         structure.BeforeClearSpaceBlockReplaced(currentPos);
 
                         if (!(foundBlock instanceof BedBlock)) {
@@ -326,25 +410,33 @@ public final class StructureEventHandler {
         return i;
     }
 
-    private static void removeStructuresFromList(ArrayList<Structure> structuresToRemove, Map.Entry<Player, ArrayList<Structure>> entry) {
+    private static void removeStructuresFromList(LevelBuildQueue queue, ArrayList<Structure> structuresToRemove, Map.Entry<Player, ArrayList<Structure>> entry) {
         for (Structure structure : structuresToRemove) {
             StructureEventHandler.removeWaterLogging(structure);
 
+            boolean hasPendingEntities = false;
+
             for (BuildEntity buildEntity : structure.entities) {
                 Optional<EntityType<?>> entityType = EntityType.byString(buildEntity.getEntityResourceString());
 
                 if (entityType.isPresent()) {
-                    StructureEventHandler.entitiesToGenerate.add(new Tuple<>(structure, buildEntity));
+                    queue.entitiesToGenerate.add(new Tuple<>(structure, buildEntity));
+                    hasPendingEntities = true;
                 }
             }
 
+            if (!hasPendingEntities) {
+                // Nothing else will be placed for this structure; the chunks no longer need to be kept loaded.
+                BuildChunkTickets.releaseTickets(structure);
+            }
+
             // This structure is done building. Do any post-building operations.
             entry.getValue().remove(structure);
         }
     }
 
-    private static void processStructureEntities() {
-        for (Tuple<Structure, BuildEntity> entityRecords : StructureEventHandler.entitiesToGenerate) {
+    private static void processStructureEntities(LevelBuildQueue queue) {
+        for (Tuple<Structure, BuildEntity> entityRecords : queue.entitiesToGenerate) {
             BuildEntity buildEntity = entityRecords.second;
             Structure structure = entityRecords.first;
 
@@ -393,8 +485,12 @@ public final class StructureEventHandler {
             }
         }
 
-        // All entities generated; clear out the list.
-        StructureEventHandler.entitiesToGenerate.clear();
+        // All entities generated; release the chunk tickets for these structures and clear out the list.
+        for (Tuple<Structure, BuildEntity> entityRecords : queue.entitiesToGenerate) {
+            BuildChunkTickets.releaseTickets(entityRecords.first);
+        }
+
+        queue.entitiesToGenerate.clear();
     }
 
     private static void removeWaterLogging(Structure structure) {
@@ -5,6 +5,7 @@ import com.wuest.prefab.Prefab;
 import com.wuest.prefab.Tuple;
 import com.wuest.prefab.blocks.FullDyeColor;
 import com.wuest.prefab.config.ModConfiguration;
+import com.wuest.prefab.config.StructureOptionLayout;
 import com.wuest.prefab.gui.GuiLangKeys;
 import com.wuest.prefab.gui.GuiUtils;
 import com.wuest.prefab.gui.controls.ExtendedButton;
@@ -20,7 +21,6 @@ import net.minecraft.world.item.DyeColor;
 import net.minecraft.world.item.ItemStack;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 /**
  * This class is used as the gui for all basic structures.
@@ -62,14 +62,13 @@ public class GuiBasicStructure extends GuiStructure {
             this.configuration = this.specificConfiguration = ClientModRegistry.playerConfig.getClientConfig(item.structureType.getName(), BasicStructureConfiguration.class);
             this.specificConfiguration.basicStructureName = item.structureType;
 
-            HashMap<String, Boolean> configurationSettings = this.serverConfiguration.structureOptions.get(item.structureType.getItemTranslationString());
+            int structureOffset = StructureOptionLayout.getOffset(item.structureType.getItemTranslationString());
             ArrayList<BaseOption> tempOptions = item.structureType.getBaseOption().getSpecificOptions();
             this.availableOptions = new ArrayList<>();
 
-            for (BaseOption option : tempOptions) {
-                if (configurationSettings == null || (configurationSettings.containsKey(option.getTranslationString())
-                        && configurationSettings.get(option.getTranslationString()))) {
-                    this.availableOptions.add(option);
+            for (int i = 0; i < tempOptions.size(); i++) {
+                if (this.serverConfiguration.isStructureOptionEnabled(structureOffset, i)) {
+                    this.availableOptions.add(tempOptions.get(i));
                 }
             }
         }
@@ -4,6 +4,7 @@ import com.wuest.prefab.ClientModRegistry;
 import com.wuest.prefab.Prefab;
 import com.wuest.prefab.Tuple;
 import com.wuest.prefab.config.ModConfiguration;
+import com.wuest.prefab.config.StructureOptionLayout;
 import com.wuest.prefab.gui.GuiLangKeys;
 import com.wuest.prefab.gui.GuiUtils;
 import com.wuest.prefab.gui.controls.ExtendedButton;
@@ -17,7 +18,6 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.world.item.DyeColor;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 /**
  * @author WuestMan
@@ -65,12 +65,11 @@ public class GuiHouseImproved extends GuiStructure {
         this.configuration.pos = this.pos;
 
         this.availableHouseStyles = new ArrayList<>();
-        HashMap<String, Boolean> houseConfigurationSettings = this.serverConfiguration.structureOptions.get("item.prefab.item_house_improved");
+        int structureOffset = StructureOptionLayout.getOffset("item.prefab.item_house_improved");
         boolean selectedStyleInListOfAvailable = false;
 
         for (HouseImprovedConfiguration.HouseStyle style : HouseImprovedConfiguration.HouseStyle.values()) {
-            if (houseConfigurationSettings.containsKey(style.getTranslationString())
-                    && houseConfigurationSettings.get(style.getTranslationString())) {
+            if (this.serverConfiguration.isStructureOptionEnabled(structureOffset, style.ordinal())) {
                 this.availableHouseStyles.add(style);
 
                 if (this.specificConfiguration.houseStyle.getDisplayName().equals(style.getDisplayName())) {
@@ -78,6 +78,16 @@ public class StructureBasic extends Structure {
         return false;
     }
 
+    @Override
+    protected boolean canBulkFill(StructureConfiguration configuration, Level world, BuildBlock block, Block foundBlock) {
+        // Trap doors are re-positioned for the mineshaft entrance.
+        if (foundBlock instanceof TrapDoorBlock) {
+            return false;
+        }
+
+        return super.canBulkFill(configuration, world, block, foundBlock);
+    }
+
     @Override
     protected Boolean BlockShouldBeClearedDuringConstruction(StructureConfiguration configuration, Level world, BlockPos originalPos, BlockPos blockPos) {
         BasicStructureConfiguration config = (BasicStructureConfiguration) configuration;
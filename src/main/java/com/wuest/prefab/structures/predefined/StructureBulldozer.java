@@ -3,11 +3,13 @@ package com.wuest.prefab.structures.predefined;
 import com.wuest.prefab.Prefab;
 import com.wuest.prefab.structures.base.BuildClear;
 import com.wuest.prefab.structures.base.BuildingMethods;
+import com.wuest.prefab.structures.base.DropAggregator;
 import com.wuest.prefab.structures.base.Structure;
 import com.wuest.prefab.structures.config.BulldozerConfiguration;
 import com.wuest.prefab.structures.config.StructureConfiguration;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.decoration.HangingEntity;
 import net.minecraft.world.item.DiggerItem;
 import net.minecraft.world.item.ItemStack;
@@ -19,6 +21,7 @@ import net.minecraft.world.level.block.LiquidBlock;
 import net.minecraft.world.level.block.state.BlockState;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
  * @author WuestMan
@@ -32,6 +35,16 @@ public class StructureBulldozer extends Structure {
     protected static ItemStack diamondShovelStack;
     protected static ItemStack diamondAxeStack;
 
+    /**
+     * Caches whether a diamond tool can harvest a block state so the tool checks only run once per state.
+     */
+    protected static final HashMap<BlockState, Boolean> harvestableStates = new HashMap<>();
+
+    /**
+     * Collects the drops while the space is being cleared.
+     */
+    protected DropAggregator drops;
+
     static {
         StructureBulldozer.diamondAxe = (DiggerItem) Items.DIAMOND_AXE;
         StructureBulldozer.diamondPickaxe = (DiggerItem) Items.DIAMOND_PICKAXE;
@@ -58,6 +71,22 @@ public class StructureBulldozer extends Structure {
         this.setBlocks(new ArrayList<>());
     }
 
+    @Override
+    protected void ClearSpace(StructureConfiguration configuration, Level world, BlockPos startBlockPos, BlockPos endBlockPos) {
+        this.drops = new DropAggregator();
+
+        super.ClearSpace(configuration, world, startBlockPos, endBlockPos);
+
+        // Drop everything as merged stacks in the middle of the cleared area instead of an item entity per block.
+        BlockPos dropPos = new BlockPos(
+                (startBlockPos.getX() + endBlockPos.getX()) / 2,
+                Math.min(startBlockPos.getY(), endBlockPos.getY()),
+                (startBlockPos.getZ() + endBlockPos.getZ()) / 2);
+
+        this.drops.spawnAt(world, dropPos);
+        this.drops = null;
+    }
+
     /**
      * This method is to process before a clear space block is set to air.
      *
@@ -67,16 +96,17 @@ public class StructureBulldozer extends Structure {
         BlockState state = world.getBlockState(blockPos);
         BulldozerConfiguration specificConfiguration = (BulldozerConfiguration) configuration;
 
-        boolean pickAxeEffective = StructureBulldozer.diamondPickaxe.isCorrectToolForDrops(diamondPickaxeStack, state);
-        boolean axeEffective = StructureBulldozer.diamondAxe.isCorrectToolForDrops(diamondAxeStack, state);
-        boolean shovelEffective = StructureBulldozer.diamondShovel.isCorrectToolForDrops(diamondShovelStack, state);
-
-        if (!specificConfiguration.creativeMode &&
-                Prefab.serverConfiguration.allowBulldozerToCreateDrops
-                && ((state.requiresCorrectToolForDrops() && pickAxeEffective || axeEffective || shovelEffective)
-                || !state.requiresCorrectToolForDrops())
+        if (!specificConfiguration.creativeMode
+                && Prefab.serverConfiguration.allowBulldozerToCreateDrops
+                && world instanceof ServerLevel serverLevel
+                && StructureBulldozer.isHarvestable(state)
                 && state.getDestroySpeed(world, blockPos) >= 0.0f) {
-            Block.dropResources(state, world, blockPos);
+            if (this.drops != null) {
+                this.drops.addDrops(serverLevel, blockPos, state);
+                state.spawnAfterBreak(serverLevel, blockPos, ItemStack.EMPTY, true);
+            } else {
+                Block.dropResources(state, world, blockPos);
+            }
         }
 
         if (specificConfiguration.creativeMode && state.getBlock() instanceof LiquidBlock) {
@@ -87,6 +117,23 @@ public class StructureBulldozer extends Structure {
         return true;
     }
 
+    /**
+     * Determines if one of the diamond tools can harvest this block state.
+     *
+     * @param state The block state to check.
+     * @return True if this block state would create drops when broken, otherwise false.
+     */
+    protected static boolean isHarvestable(BlockState state) {
+        return StructureBulldozer.harvestableStates.computeIfAbsent(state, key -> {
+            boolean pickAxeEffective = StructureBulldozer.diamondPickaxe.isCorrectToolForDrops(diamondPickaxeStack, key);
+            boolean axeEffective = StructureBulldozer.diamondAxe.isCorrectToolForDrops(diamondAxeStack, key);
+            boolean shovelEffective = StructureBulldozer.diamondShovel.isCorrectToolForDrops(diamondShovelStack, key);
+
+            return (key.requiresCorrectToolForDrops() && pickAxeEffective || axeEffective || shovelEffective)
+                    || !key.requiresCorrectToolForDrops();
+        });
+    }
+
     @Override
     public void BeforeHangingEntityRemoved(HangingEntity hangingEntity) {
         // Only generate drops for this hanging entity if the bulldozer allows it.
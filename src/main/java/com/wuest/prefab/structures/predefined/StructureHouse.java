@@ -92,6 +92,17 @@ public class StructureHouse extends Structure {
         return false;
     }
 
+    @Override
+    protected boolean canBulkFill(StructureConfiguration configuration, Level world, BuildBlock block, Block foundBlock) {
+        // These blocks are skipped or recorded by the custom block processing.
+        if (foundBlock instanceof TorchBlock || foundBlock instanceof CraftingTableBlock || foundBlock instanceof TrapDoorBlock
+                || foundBlock instanceof SeagrassBlock || foundBlock instanceof TallSeagrassBlock || foundBlock == Blocks.SPONGE) {
+            return false;
+        }
+
+        return super.canBulkFill(configuration, world, block, foundBlock);
+    }
+
     /**
      * This method is used after the main building is build for any additional structures or modifications.
      *
@@ -79,6 +79,16 @@ public class StructureHouseAdvanced extends Structure {
         return false;
     }
 
+    @Override
+    protected boolean canBulkFill(StructureConfiguration configuration, Level world, BuildBlock block, Block foundBlock) {
+        // These blocks are recorded by the custom block processing.
+        if (foundBlock instanceof TrapDoorBlock || foundBlock == Blocks.SPONGE) {
+            return false;
+        }
+
+        return super.canBulkFill(configuration, world, block, foundBlock);
+    }
+
     /**
      * This method is used after the main building is build for any additional structures or modifications.
      *
@@ -0,0 +1,370 @@
+package com.wuest.prefab.structures.render;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.*;
+import com.wuest.prefab.Prefab;
+import com.wuest.prefab.PrefabClient;
+import com.wuest.prefab.structures.base.BuildBlock;
+import com.wuest.prefab.structures.base.Structure;
+import com.wuest.prefab.structures.config.StructureConfiguration;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.LevelRenderer;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.ShaderInstance;
+import net.minecraft.client.renderer.block.BlockRenderDispatcher;
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.client.renderer.texture.OverlayTexture;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.RenderShape;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
+import org.joml.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class holds the baked vertex buffers of a structure preview, one buffer per chunk section the structure covers.
+ * A section is baked the first time it's drawn up close; afterwards it's only re-baked when a preview block inside of it is
+ * covered or uncovered in the world, as tracked by a {@link PreviewOccupancy}. Covered positions are outlined in red.
+ * Sections outside of the camera's view are skipped and distant sections are drawn as an outline.
+ */
+public class PreviewMesh {
+    private final BlockPos pos;
+    private final Direction facing;
+    private final HashMap<Long, PreviewSection> sections = new HashMap<>();
+    private final HashMap<BlockState, Integer> stateColors = new HashMap<>();
+    private PreviewOccupancy occupancy;
+
+    /**
+     * The builder used to bake sections. This preview bakes while the world is rendering, so it can't share the
+     * tesselator's builder with whatever else is drawing at that moment.
+     */
+    private BufferBuilder bufferBuilder;
+
+    /**
+     * Initializes a new instance of the {@link PreviewMesh} class.
+     * The block states, positions, models and colors are resolved from the structure alone; the client world is never
+     * passed in, since it's changed by the client thread while this runs on a worker thread. Anything which depends on the
+     * world is read by {@link #createOccupancy}, which has to be called on the render thread before the mesh is drawn.
+     *
+     * @param structure     The structure to preview.
+     * @param configuration The configuration which holds the position and facing of the preview.
+     */
+    public PreviewMesh(Structure structure, StructureConfiguration configuration) {
+        this.pos = configuration.pos;
+        this.facing = configuration.houseFacing;
+
+        for (BuildBlock buildBlock : structure.getBlocksWithFills()) {
+            BuildBlock resolvedBlock = this.addBlock(structure, configuration, buildBlock);
+
+            // Render the sub-block if there is any.
+            if (resolvedBlock != null && resolvedBlock.getSubBlock() != null) {
+                this.addBlock(structure, configuration, resolvedBlock.getSubBlock());
+            }
+        }
+    }
+
+    /**
+     * Prepares a preview mesh on a background thread.
+     * Preparations are chained so only one of them is resolving block states of a structure at a time.
+     *
+     * @param previous      The previous preparation or null if there is none.
+     * @param structure     The structure to preview.
+     * @param configuration The configuration which holds the position and facing of the preview.
+     * @return A future which completes with the prepared mesh.
+     */
+    public static CompletableFuture<PreviewMesh> prepareAsync(CompletableFuture<PreviewMesh> previous, Structure structure,
+                                                             StructureConfiguration configuration) {
+        if (previous == null) {
+            return CompletableFuture.supplyAsync(() -> new PreviewMesh(structure, configuration), Util.backgroundExecutor());
+        }
+
+        return previous.handleAsync((mesh, exception) -> new PreviewMesh(structure, configuration), Util.backgroundExecutor());
+    }
+
+    /**
+     * Determines if this mesh was built for the position and facing of a configuration.
+     *
+     * @param configuration The current preview configuration.
+     * @return True if this mesh can still be drawn for the configuration, otherwise false.
+     */
+    public boolean matches(StructureConfiguration configuration) {
+        return this.pos.equals(configuration.pos) && this.facing == configuration.houseFacing;
+    }
+
+    /**
+     * Updates the occupancy of a position and marks its section for re-baking if the preview block there is now hidden or shown.
+     *
+     * @param blockPos The position which changed in the world.
+     * @param state    The new block state at the position.
+     */
+    public void onBlockChanged(BlockPos blockPos, BlockState state) {
+        if (this.occupancy.update(blockPos, state)) {
+            PreviewSection section = this.sections.get(SectionPos.asLong(blockPos));
+
+            if (section != null) {
+                section.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Updates the occupancy of every preview block in a chunk column which was loaded.
+     *
+     * @param world    The client world.
+     * @param chunkPos The chunk which was loaded.
+     */
+    public void onChunkLoaded(Level world, ChunkPos chunkPos) {
+        for (PreviewSection section : this.sections.values()) {
+            if (section.sectionPos.x() == chunkPos.x && section.sectionPos.z() == chunkPos.z) {
+                for (PreviewBlock block : section.blocks) {
+                    if (this.occupancy.update(block.pos, world.getBlockState(block.pos))) {
+                        section.dirty = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws the sections of this preview which are in the camera's view.
+     * Sections within the detail distance are drawn from their baked buffers, re-baking them first if they are dirty; sections
+     * further away are only drawn as an outline.
+     *
+     * @param matrixStack       The current matrix stack.
+     * @param multiBufferSource The buffer source used for the outlines of distant sections and conflicting blocks.
+     * @param cameraX           The x-coordinate of the camera.
+     * @param cameraY           The y-coordinate of the camera.
+     * @param cameraZ           The z-coordinate of the camera.
+     */
+    public void draw(PoseStack matrixStack, MultiBufferSource multiBufferSource, double cameraX, double cameraY, double cameraZ) {
+        Matrix4f cameraRotation = new Matrix4f(RenderSystem.getModelViewMatrix()).mul(matrixStack.last().pose());
+        Frustum frustum = new Frustum(cameraRotation, RenderSystem.getProjectionMatrix());
+        frustum.prepare(cameraX, cameraY, cameraZ);
+
+        double detailDistance = Math.max(Prefab.configuration.structurePreviewDetailDistance, 0);
+        double detailDistanceSquared = detailDistance * detailDistance;
+        ArrayList<PreviewSection> detailedSections = new ArrayList<>();
+        VertexConsumer lineBuffer = null;
+
+        for (PreviewSection section : this.sections.values()) {
+            if (!frustum.isVisible(section.bounds)) {
+                continue;
+            }
+
+            if (section.bounds.getCenter().distanceToSqr(cameraX, cameraY, cameraZ) <= detailDistanceSquared) {
+                if (section.dirty) {
+                    this.bake(section);
+                }
+
+                if (section.buffer != null) {
+                    detailedSections.add(section);
+                }
+
+                if (!section.conflicts.isEmpty()) {
+                    if (lineBuffer == null) {
+                        lineBuffer = multiBufferSource.getBuffer(RenderType.lines());
+                    }
+
+                    // Highlight the positions where the structure would replace an existing block.
+                    for (BlockPos conflict : section.conflicts) {
+                        LevelRenderer.renderLineBox(matrixStack, lineBuffer, new AABB(conflict).move(-cameraX, -cameraY, -cameraZ), 1.0F, 0.0F, 0.0F, 0.8F);
+                    }
+                }
+            } else {
+                if (lineBuffer == null) {
+                    lineBuffer = multiBufferSource.getBuffer(RenderType.lines());
+                }
+
+                LevelRenderer.renderLineBox(matrixStack, lineBuffer, section.bounds.move(-cameraX, -cameraY, -cameraZ), 1.0F, 1.0F, 0.0F, 0.6F);
+            }
+        }
+
+        if (detailedSections.isEmpty()) {
+            return;
+        }
+
+        // Vertices are stored relative to the preview position so they don't lose float precision far from the world origin.
+        Matrix4f modelView = new Matrix4f(cameraRotation)
+                .translate((float) (this.pos.getX() - cameraX), (float) (this.pos.getY() - cameraY), (float) (this.pos.getZ() - cameraZ));
+
+        PrefabClient.PREVIEW_LAYER.setupRenderState();
+        ShaderInstance shader = RenderSystem.getShader();
+
+        for (PreviewSection section : detailedSections) {
+            section.buffer.bind();
+            section.buffer.drawWithShader(modelView, RenderSystem.getProjectionMatrix(), shader);
+        }
+
+        VertexBuffer.unbind();
+        PrefabClient.PREVIEW_LAYER.clearRenderState();
+    }
+
+    /**
+     * Releases the vertex buffers and the buffer builder of this preview.
+     */
+    public void close() {
+        for (PreviewSection section : this.sections.values()) {
+            section.closeBuffer();
+        }
+
+        this.sections.clear();
+
+        if (this.bufferBuilder != null) {
+            this.bufferBuilder.release();
+            this.bufferBuilder = null;
+        }
+    }
+
+    private BuildBlock addBlock(Structure structure, StructureConfiguration configuration, BuildBlock buildBlock) {
+        Block foundBlock = BuiltInRegistries.BLOCK.get(buildBlock.getResourceLocation());
+
+        if (foundBlock == null) {
+            return null;
+        }
+
+        // Get the unique block state for this block. Resolving a state from the structure's data doesn't read the level.
+        BuildBlock resolvedBlock = BuildBlock.SetBlockState(configuration, null, configuration.pos, buildBlock, foundBlock, foundBlock.defaultBlockState(), structure);
+        BlockState blockState = resolvedBlock.getBlockState();
+
+        if (blockState.getRenderShape() == RenderShape.MODEL) {
+            // In order to get the proper relative position I also need the structure's original facing.
+            BlockPos blockPos = resolvedBlock.getStartingPosition().getRelativePosition(configuration.pos,
+                    structure.getClearSpace().getShape().getDirection(), configuration.houseFacing);
+
+            Minecraft minecraft = Minecraft.getInstance();
+            BakedModel model = minecraft.getBlockRenderer().getBlockModel(blockState);
+            int color = this.stateColors.computeIfAbsent(blockState, state -> minecraft.getBlockColors().getColor(state, null, null, 0));
+
+            this.sections.computeIfAbsent(SectionPos.asLong(blockPos), key -> new PreviewSection(SectionPos.of(key)))
+                    .add(new PreviewBlock(blockState, blockPos, model, color));
+        }
+
+        return resolvedBlock;
+    }
+
+    /**
+     * Fills in the occupancy of the preview from the world.
+     *
+     * @param world The client world.
+     */
+    public void createOccupancy(Level world) {
+        BlockPos minPos = this.pos;
+        BlockPos maxPos = this.pos;
+
+        for (PreviewSection section : this.sections.values()) {
+            minPos = BlockPos.min(minPos, BlockPos.containing(section.bounds.minX, section.bounds.minY, section.bounds.minZ));
+            maxPos = BlockPos.max(maxPos, BlockPos.containing(section.bounds.maxX - 1, section.bounds.maxY - 1, section.bounds.maxZ - 1));
+        }
+
+        this.occupancy = new PreviewOccupancy(minPos, maxPos);
+
+        for (PreviewSection section : this.sections.values()) {
+            for (PreviewBlock block : section.blocks) {
+                this.occupancy.update(block.pos, world.getBlockState(block.pos));
+            }
+        }
+    }
+
+    private void bake(PreviewSection section) {
+        Minecraft minecraft = Minecraft.getInstance();
+        BlockRenderDispatcher brd = minecraft.getBlockRenderer();
+        PoseStack poseStack = new PoseStack();
+
+        if (this.bufferBuilder == null) {
+            this.bufferBuilder = new BufferBuilder(DefaultVertexFormat.NEW_ENTITY.getVertexSize() * 4 * 256);
+        }
+
+        BufferBuilder bufferBuilder = this.bufferBuilder;
+
+        bufferBuilder.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.NEW_ENTITY);
+        section.conflicts.clear();
+
+        for (PreviewBlock block : section.blocks) {
+            // Don't render this block if it's going to overlay a non-air/water block.
+            if (this.occupancy.isOccupied(block.pos)) {
+                section.conflicts.add(block.pos);
+                continue;
+            }
+
+            float r = (float) (block.color >> 16 & 255) / 255.0F;
+            float g = (float) (block.color >> 8 & 255) / 255.0F;
+            float b = (float) (block.color & 255) / 255.0F;
+
+            poseStack.pushPose();
+            poseStack.translate(block.pos.getX() - this.pos.getX(), block.pos.getY() - this.pos.getY(), block.pos.getZ() - this.pos.getZ());
+
+            brd.getModelRenderer().renderModel(poseStack.last(), bufferBuilder, block.state, block.model, r, g, b, 0xF000F0, OverlayTexture.NO_OVERLAY);
+
+            poseStack.popPose();
+        }
+
+        BufferBuilder.RenderedBuffer renderedBuffer = bufferBuilder.endOrDiscardIfEmpty();
+        section.dirty = false;
+
+        if (renderedBuffer == null) {
+            section.closeBuffer();
+            return;
+        }
+
+        if (section.buffer == null) {
+            section.buffer = new VertexBuffer(VertexBuffer.Usage.STATIC);
+        }
+
+        section.buffer.bind();
+        section.buffer.upload(renderedBuffer);
+        VertexBuffer.unbind();
+    }
+
+    private static final class PreviewBlock {
+        private final BlockState state;
+        private final BlockPos pos;
+        private final BakedModel model;
+        private final int color;
+
+        private PreviewBlock(BlockState state, BlockPos pos, BakedModel model, int color) {
+            this.state = state;
+            this.pos = pos;
+            this.model = model;
+            this.color = color;
+        }
+    }
+
+    private static final class PreviewSection {
+        private final SectionPos sectionPos;
+        private final ArrayList<PreviewBlock> blocks = new ArrayList<>();
+        private final ArrayList<BlockPos> conflicts = new ArrayList<>();
+        private VertexBuffer buffer;
+        private boolean dirty = true;
+        private AABB bounds;
+
+        private PreviewSection(SectionPos sectionPos) {
+            this.sectionPos = sectionPos;
+        }
+
+        private void add(PreviewBlock block) {
+            this.blocks.add(block);
+
+            AABB blockBounds = new AABB(block.pos);
+            this.bounds = this.bounds == null ? blockBounds : this.bounds.minmax(blockBounds);
+        }
+
+        private void closeBuffer() {
+            if (this.buffer != null) {
+                this.buffer.close();
+                this.buffer = null;
+            }
+        }
+    }
+}
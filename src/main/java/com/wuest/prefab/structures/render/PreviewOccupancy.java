@@ -0,0 +1,88 @@
+package com.wuest.prefab.structures.render;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.BitSet;
+
+/**
+ * This class is a bitmap over the footprint of a structure preview which records the positions where the world already
+ * has a block which the preview would overlap.
+ * The bits are filled in once when the preview is placed and afterwards only updated from client block and chunk updates.
+ */
+public class PreviewOccupancy {
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final BitSet occupied;
+
+    /**
+     * Initializes a new instance of the {@link PreviewOccupancy} class with every position unoccupied.
+     *
+     * @param minPos The lowest corner of the footprint.
+     * @param maxPos The highest corner of the footprint.
+     */
+    public PreviewOccupancy(BlockPos minPos, BlockPos maxPos) {
+        this.minX = minPos.getX();
+        this.minY = minPos.getY();
+        this.minZ = minPos.getZ();
+        this.sizeX = maxPos.getX() - minPos.getX() + 1;
+        this.sizeY = maxPos.getY() - minPos.getY() + 1;
+        this.sizeZ = maxPos.getZ() - minPos.getZ() + 1;
+        this.occupied = new BitSet(this.sizeX * this.sizeY * this.sizeZ);
+    }
+
+    /**
+     * Determines if a block state blocks the preview from being shown at its position.
+     *
+     * @param state The block state in the world.
+     * @return True if the state is anything other than air or water.
+     */
+    public static boolean isOccupying(BlockState state) {
+        return state.getBlock() != Blocks.AIR && state.getBlock() != Blocks.WATER;
+    }
+
+    public boolean contains(BlockPos pos) {
+        int x = pos.getX() - this.minX;
+        int y = pos.getY() - this.minY;
+        int z = pos.getZ() - this.minZ;
+
+        return x >= 0 && x < this.sizeX && y >= 0 && y < this.sizeY && z >= 0 && z < this.sizeZ;
+    }
+
+    public boolean isOccupied(BlockPos pos) {
+        return this.contains(pos) && this.occupied.get(this.getIndex(pos));
+    }
+
+    /**
+     * Updates the bit for a position from the block state in the world.
+     *
+     * @param pos   The position which changed.
+     * @param state The new block state at the position.
+     * @return True if the position went from occupied to free or the other way around, otherwise false.
+     */
+    public boolean update(BlockPos pos, BlockState state) {
+        if (!this.contains(pos)) {
+            return false;
+        }
+
+        int index = this.getIndex(pos);
+        boolean wasOccupied = this.occupied.get(index);
+        boolean isOccupied = PreviewOccupancy.isOccupying(state);
+
+        if (wasOccupied == isOccupied) {
+            return false;
+        }
+
+        this.occupied.set(index, isOccupied);
+        return true;
+    }
+
+    private int getIndex(BlockPos pos) {
+        return (pos.getX() - this.minX) + this.sizeX * ((pos.getZ() - this.minZ) + this.sizeZ * (pos.getY() - this.minY));
+    }
+}
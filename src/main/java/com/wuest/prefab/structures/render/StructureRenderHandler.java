@@ -5,31 +5,26 @@ import com.wuest.prefab.ClientModRegistry;
 import com.wuest.prefab.Prefab;
 import com.wuest.prefab.blocks.BlockStructureScanner;
 import com.wuest.prefab.config.StructureScannerConfig;
-import com.wuest.prefab.structures.base.BuildBlock;
+import com.wuest.prefab.structures.base.BuildClear;
 import com.wuest.prefab.structures.base.Structure;
 import com.wuest.prefab.structures.config.StructureConfiguration;
-import net.minecraft.client.Camera;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.LevelRenderer;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderType;
-import net.minecraft.client.renderer.block.BlockRenderDispatcher;
-import net.minecraft.client.renderer.texture.OverlayTexture;
-import net.minecraft.client.resources.model.BakedModel;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
-import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.block.Block;
-import net.minecraft.world.level.block.Blocks;
-import net.minecraft.world.level.block.RenderShape;
 import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.phys.BlockHitResult;
-import net.minecraft.world.phys.Vec3;
-import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.AABB;
 import org.joml.Matrix4f;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * @author WuestMan
@@ -45,6 +40,10 @@ public class StructureRenderHandler {
     public static boolean rendering = false;
     public static boolean showedMessage = false;
     private static int dimension;
+    private static PreviewMesh previewMesh;
+    private static ArrayList<AABB> scannerBoxes;
+    private static CompletableFuture<PreviewMesh> pendingMesh;
+    private static CompletableFuture<PreviewMesh> lastPreparation;
 
     /**
      * Resets the structure to show in the world.
@@ -56,11 +55,18 @@ public class StructureRenderHandler {
         StructureRenderHandler.currentStructure = structure;
         StructureRenderHandler.currentConfiguration = configuration;
         StructureRenderHandler.showedMessage = false;
+        StructureRenderHandler.closePreviewMesh();
+        StructureRenderHandler.pendingMesh = null;
 
         Minecraft mc = Minecraft.getInstance();
 
         if (mc.level != null) {
             StructureRenderHandler.dimension = mc.level.dimensionType().logicalHeight();
+
+            // Start resolving the preview right away so it's usually ready by the time the screen has closed.
+            if (structure != null && configuration != null) {
+                StructureRenderHandler.preparePreviewMesh();
+            }
         }
     }
 
@@ -163,21 +169,31 @@ public class StructureRenderHandler {
                                            float cameraX,
                                            float cameraY,
                                            float cameraZ) {
-        for (int i = 0; i < ClientModRegistry.structureScanners.size(); i++) {
-            StructureScannerConfig config = ClientModRegistry.structureScanners.get(i);
+        // The boxes only change when a scanner is configured, added or removed.
+        if (StructureRenderHandler.scannerBoxes == null) {
+            StructureRenderHandler.scannerBoxes = StructureRenderHandler.createScannerBoxes();
+        }
 
-            BlockPos pos = config.blockPos;
-            boolean removeConfig = false;
-            removeConfig = pos == null;
+        // All of the boxes go through one line buffer.
+        VertexConsumer lineBuffer = multiBufferSource.getBuffer(RenderType.lines());
 
-            // Make sure the block exists in the world at the block pos.
-            if (pos != null) {
-                removeConfig = !(Minecraft.getInstance().level.getBlockState(pos.relative(Direction.UP)).getBlock() instanceof BlockStructureScanner);
-            }
+        for (AABB box : StructureRenderHandler.scannerBoxes) {
+            LevelRenderer.renderLineBox(matrixStack, lineBuffer, box.move(-cameraX, -cameraY, -cameraZ), 1.0F, 1.0F, 0.0F, 1.0F);
+        }
+    }
 
-            if (removeConfig) {
-                ClientModRegistry.structureScanners.remove(i);
-                i--;
+    /**
+     * Clears the cached scanner boxes so they are rebuilt from the scanner configurations on the next frame.
+     */
+    public static void invalidateScannerBoxes() {
+        StructureRenderHandler.scannerBoxes = null;
+    }
+
+    private static ArrayList<AABB> createScannerBoxes() {
+        ArrayList<AABB> boxes = new ArrayList<>();
+
+        for (StructureScannerConfig config : ClientModRegistry.structureScanners) {
+            if (config.blockPos == null) {
                 continue;
             }
 
@@ -224,162 +240,149 @@ public class StructureRenderHandler {
                 }
             }
 
-            StructureRenderHandler.drawBox(
-                    matrixStack,
-                    multiBufferSource,
+            boxes.add(new AABB(
                     startingPosition.getX(),
+                    startingPosition.getY() + .02,
                     startingPosition.getZ(),
-                    startingPosition.getY(),
-                    cameraX,
-                    cameraY,
-                    cameraZ,
-                    xLength,
-                    zLength,
-                    config.blocksTall);
+                    startingPosition.getX() + xLength,
+                    startingPosition.getY() + config.blocksTall,
+                    startingPosition.getZ() + zLength));
+        }
+
+        return boxes;
+    }
+
+    /**
+     * Removes the scanner configurations whose scanner block is no longer at its position.
+     *
+     * @param shouldCheck Determines which scanner positions to check.
+     * @param getState    Gets the current block state at a scanner position.
+     */
+    private static void removeMissingScanners(Predicate<BlockPos> shouldCheck, Function<BlockPos, BlockState> getState) {
+        boolean removed = ClientModRegistry.structureScanners.removeIf(config -> config.blockPos == null
+                || (shouldCheck.test(config.blockPos.above()) && !(getState.apply(config.blockPos.above()).getBlock() instanceof BlockStructureScanner)));
+
+        if (removed) {
+            StructureRenderHandler.invalidateScannerBoxes();
         }
     }
 
-    public static void newRenderPlayerLook(Player player, PoseStack ms, VertexConsumer buffer, double cameraX, double cameraY, double cameraZ) {
+    public static void newRenderPlayerLook(Player player, PoseStack ms, MultiBufferSource multiBufferSource, double cameraX, double cameraY, double cameraZ) {
         if (StructureRenderHandler.currentStructure != null
                 && StructureRenderHandler.dimension == player.level().dimensionType().logicalHeight()
                 && StructureRenderHandler.currentConfiguration != null
                 && Prefab.serverConfiguration.enableStructurePreview) {
-
             Level world = player.level();
 
-            Vec3 cameraPosition = new Vec3(cameraX, cameraY, cameraZ);
-            Direction playerViewDirection = player.getNearestViewDirection();
-            Vec3 playerViewVector = player.getViewVector(1.0F);
-            HashMap<Integer, BakedModel> modelMap = new HashMap<>();
-            HashMap<Integer, Integer> stateColor = new HashMap<>();
-
-            for (BuildBlock buildBlock : StructureRenderHandler.currentStructure.getBlocks()) {
-
-                Block foundBlock = buildBlock.getBlockState() != null ? buildBlock.getBlockState().getBlock() : BuiltInRegistries.BLOCK.get(buildBlock.getResourceLocation());
-
-                if (foundBlock != null) {
-                    // In order to get the proper relative position I also need the structure's original facing.
-                    if (buildBlock.blockPos == null) {
-                        buildBlock.blockPos = buildBlock.getStartingPosition().getRelativePosition(
-                                StructureRenderHandler.currentConfiguration.pos,
-                                StructureRenderHandler.currentStructure.getClearSpace().getShape().getDirection(),
-                                StructureRenderHandler.currentConfiguration.houseFacing);
-                    }
-
-                    BlockPos buildBlockPos = buildBlock.blockPos;
-
-                    // Don't render this block if it's going to overlay a non-air/water block.
-                    BlockState targetBlock = world.getBlockState(buildBlockPos);
-
-                    if (targetBlock.getBlock() != Blocks.AIR && targetBlock.getBlock() != Blocks.WATER) {
-                        continue;
-                    }
-
-                    if (buildBlock.centerOfBlock == null) {
-                        buildBlock.centerOfBlock = Vec3.atCenterOf(buildBlockPos);
-                    }
-
-                    Vec3 vectorBetweenPlayerAndBlock = new Vec3(
-                            buildBlockPos.getX() - player.getX(),
-                            buildBlockPos.getY() - player.getEyeY(),
-                            buildBlockPos.getZ() - player.getZ());
-
-                    vectorBetweenPlayerAndBlock.normalize();
-
-                    BlockHitResult hitResult = Shapes.block().clip(cameraPosition, buildBlock.centerOfBlock, buildBlockPos);
-
-                    // Note: The hit direction is in reference to the "Block"'s point of view, not the player.
-                    if (hitResult == null || (hitResult.getDirection() != Direction.UP && hitResult.getDirection() != Direction.DOWN
-                            && hitResult.getDirection() == playerViewDirection)) {
-                        // Never hit the block in the first place or it's behind them so continue.
-                        continue;
-                    }
-
-                    // Calculate the "line" between the block and the player's view.
-                    // This is the same way that Endermen determine if a player is looking at them.
-                    // This avoids using "Frustum" as it's finicky and prone to change with Minecraft's rendering changes.
-                    double lineBetweenPlayerViewBlock = playerViewVector.normalize().dot(vectorBetweenPlayerAndBlock);
-                    double result = 1.0 - 0.025 / vectorBetweenPlayerAndBlock.length();
-                    boolean boolCheck = lineBetweenPlayerViewBlock > result;
-
-                    if (!boolCheck) {
-                        continue;
-                    }
+            // The preview is prepared once and only prepared again when it's moved or turned.
+            if (StructureRenderHandler.previewMesh != null && !StructureRenderHandler.previewMesh.matches(StructureRenderHandler.currentConfiguration)) {
+                StructureRenderHandler.closePreviewMesh();
+            }
 
-                    if (buildBlock.getBlockState() == null) {
-                        // Get the unique block state for this block.
-                        BlockState blockState = foundBlock.defaultBlockState();
-                        buildBlock = BuildBlock.SetBlockState(
-                                StructureRenderHandler.currentConfiguration,
-                                player.level(),
-                                StructureRenderHandler.currentConfiguration.pos,
-                                buildBlock,
-                                foundBlock,
-                                blockState,
-                                StructureRenderHandler.currentStructure);
+            if (StructureRenderHandler.previewMesh == null) {
+                if (StructureRenderHandler.pendingMesh == null) {
+                    StructureRenderHandler.preparePreviewMesh();
+                } else if (StructureRenderHandler.pendingMesh.isDone()) {
+                    PreviewMesh preparedMesh;
+
+                    try {
+                        preparedMesh = StructureRenderHandler.pendingMesh.join();
+                    } catch (Exception ex) {
+                        Prefab.logger.error("Unable to prepare the structure preview.", ex);
+                        StructureRenderHandler.setStructure(null, null);
+                        return;
                     }
 
-                    StructureRenderHandler.renderBlockAt(ms, buffer, buildBlock.getBlockState(), buildBlockPos, buildBlock.hashCode(), modelMap, stateColor);
-
-                    // Render the sub-block if there is any.
-                    if (buildBlock.getSubBlock() != null) {
-                        BuildBlock subBuildBlock = buildBlock.getSubBlock();
-
-                        Block foundSubBlock = subBuildBlock.getBlockState() != null ? subBuildBlock.getBlockState().getBlock() : BuiltInRegistries.BLOCK.get(subBuildBlock.getResourceLocation());
-
-                        if (subBuildBlock.getBlockState() == null) {
-                            BlockState subBlockState = foundSubBlock.defaultBlockState();
-
-                            subBuildBlock = BuildBlock.SetBlockState(
-                                    StructureRenderHandler.currentConfiguration,
-                                    player.level(),
-                                    StructureRenderHandler.currentConfiguration.pos,
-                                    buildBlock.getSubBlock(),
-                                    foundSubBlock,
-                                    subBlockState,
-                                    StructureRenderHandler.currentStructure);
-                        }
-
-                        if (subBuildBlock.blockPos == null) {
-                            subBuildBlock.blockPos = subBuildBlock.getStartingPosition().getRelativePosition(
-                                    StructureRenderHandler.currentConfiguration.pos,
-                                    StructureRenderHandler.currentStructure.getClearSpace().getShape().getDirection(),
-                                    StructureRenderHandler.currentConfiguration.houseFacing);
-                        }
+                    StructureRenderHandler.pendingMesh = null;
 
-                        StructureRenderHandler.renderBlockAt(ms, buffer, subBuildBlock.getBlockState(), subBuildBlock.blockPos, subBuildBlock.hashCode(), modelMap, stateColor);
+                    // The configuration may have changed while this mesh was prepared; a new one is started on the next frame.
+                    if (preparedMesh.matches(StructureRenderHandler.currentConfiguration)) {
+                        preparedMesh.createOccupancy(world);
+                        StructureRenderHandler.previewMesh = preparedMesh;
                     }
                 }
             }
+
+            if (StructureRenderHandler.previewMesh != null) {
+                StructureRenderHandler.previewMesh.draw(ms, multiBufferSource, cameraX, cameraY, cameraZ);
+            } else {
+                // Only show the outline of the structure until the preview is ready.
+                StructureRenderHandler.drawStructureBounds(ms, multiBufferSource, cameraX, cameraY, cameraZ);
+            }
+        } else if (StructureRenderHandler.previewMesh != null) {
+            StructureRenderHandler.closePreviewMesh();
         }
     }
 
-    private static void renderBlockAt(PoseStack ms, VertexConsumer buffer, BlockState state, BlockPos pos, int buildBlockHash, HashMap<Integer, BakedModel> modelMap, HashMap<Integer, Integer> colorMap) {
-        if (state.getRenderShape() != RenderShape.INVISIBLE && state.getRenderShape() == RenderShape.MODEL) {
-            Minecraft minecraft = Minecraft.getInstance();
-            Camera camera = minecraft.getEntityRenderDispatcher().camera;
-            double renderPosX = camera.getPosition().x();
-            double renderPosY = camera.getPosition().y();
-            double renderPosZ = camera.getPosition().z();
+    /**
+     * Updates the preview's occupancy and the structure scanners when a block changes in the client world.
+     *
+     * @param pos   The position which changed.
+     * @param state The new block state at the position.
+     */
+    public static void onClientBlockChanged(BlockPos pos, BlockState state) {
+        if (StructureRenderHandler.previewMesh != null) {
+            StructureRenderHandler.previewMesh.onBlockChanged(pos, state);
+        }
 
-            ms.pushPose();
-            ms.translate(-renderPosX, -renderPosY, -renderPosZ);
+        if (!ClientModRegistry.structureScanners.isEmpty()) {
+            StructureRenderHandler.removeMissingScanners(pos::equals, scannerPos -> state);
+        }
+    }
 
-            BlockRenderDispatcher brd = minecraft.getBlockRenderer();
-            ms.translate(pos.getX(), pos.getY(), pos.getZ());
+    /**
+     * Updates the preview's occupancy and the structure scanners for a chunk when that chunk is loaded on the client.
+     *
+     * @param world    The client world.
+     * @param chunkPos The chunk which was loaded.
+     */
+    public static void onClientChunkLoaded(Level world, ChunkPos chunkPos) {
+        if (StructureRenderHandler.previewMesh != null) {
+            StructureRenderHandler.previewMesh.onChunkLoaded(world, chunkPos);
+        }
 
-            // Get these values out of the saved hashmaps if possible.
-            BakedModel model = modelMap.computeIfAbsent(buildBlockHash, x -> brd.getBlockModel(state));
-            int color = colorMap.computeIfAbsent(state.hashCode(), x -> minecraft.getBlockColors().getColor(state, null, null, 0));
+        if (!ClientModRegistry.structureScanners.isEmpty()) {
+            StructureRenderHandler.removeMissingScanners(scannerPos -> new ChunkPos(scannerPos).equals(chunkPos), world::getBlockState);
+        }
+    }
 
-            float r = (float) (color >> 16 & 255) / 255.0F;
-            float g = (float) (color >> 8 & 255) / 255.0F;
-            float b = (float) (color & 255) / 255.0F;
+    private static void preparePreviewMesh() {
+        StructureRenderHandler.pendingMesh = PreviewMesh.prepareAsync(StructureRenderHandler.lastPreparation, StructureRenderHandler.currentStructure,
+                StructureRenderHandler.currentConfiguration);
+        StructureRenderHandler.lastPreparation = StructureRenderHandler.pendingMesh;
+    }
 
-            // Always use entity translucent layer so blending is turned on
-            brd.getModelRenderer().renderModel(ms.last(), buffer, state, model, r, g, b, 0xF000F0, OverlayTexture.NO_OVERLAY);
+    private static void drawStructureBounds(PoseStack ms, MultiBufferSource multiBufferSource, double cameraX, double cameraY, double cameraZ) {
+        StructureConfiguration configuration = StructureRenderHandler.currentConfiguration;
+        BuildClear clearSpace = StructureRenderHandler.currentStructure.getClearSpace();
+
+        BlockPos startBlockPos = clearSpace.getStartingPosition().getRelativePosition(configuration.pos, clearSpace.getShape().getDirection(), configuration.houseFacing);
+        BlockPos endBlockPos = startBlockPos
+                .relative(configuration.houseFacing.getCounterClockWise(), clearSpace.getShape().getWidth() - 1)
+                .relative(configuration.houseFacing.getOpposite(), clearSpace.getShape().getLength() - 1)
+                .relative(Direction.UP, clearSpace.getShape().getHeight());
+
+        BlockPos minPos = BlockPos.min(startBlockPos, endBlockPos);
+        BlockPos maxPos = BlockPos.max(startBlockPos, endBlockPos);
+
+        StructureRenderHandler.drawBox(
+                ms,
+                multiBufferSource,
+                minPos.getX(),
+                minPos.getZ(),
+                minPos.getY(),
+                (float) cameraX,
+                (float) cameraY,
+                (float) cameraZ,
+                maxPos.getX() - minPos.getX() + 1,
+                maxPos.getZ() - minPos.getZ() + 1,
+                maxPos.getY() - minPos.getY() + 1);
+    }
 
-            ms.popPose();
+    private static void closePreviewMesh() {
+        if (StructureRenderHandler.previewMesh != null) {
+            StructureRenderHandler.previewMesh.close();
+            StructureRenderHandler.previewMesh = null;
         }
     }
 }